@@ -0,0 +1,96 @@
+package io.github.mschout.aoc.puzzle;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Day05 crate stack engines on tall stacks, with moves that take a large part
+ * of a stack at a time. The stacks are rebuilt before every invocation, so only the moves
+ * are measured.
+ * <p>
+ * Run with: ./gradlew jmh -PjmhIncludes=CrateStackBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CrateStackBenchmark {
+  private static final int STACKS = 9;
+  private static final int MOVES = 1000;
+  private static final long SEED = 1;
+
+  @Param({ "ARRAY", "ROPE" })
+  public Day05.Engine engine;
+
+  // Starting height of each stack
+  @Param({ "1000", "1000000" })
+  public int height;
+
+  // count, from, to of each move
+  private int[][] moves;
+
+  private Day05.CrateStack[] stacks;
+
+  @Setup(Level.Trial)
+  public void generateMoves() {
+    var random = new Random(SEED);
+    var heights = new int[STACKS];
+    Arrays.fill(heights, height);
+
+    moves = new int[MOVES][];
+
+    for (int i = 0; i < MOVES; i++) {
+      int from;
+      do {
+        from = random.nextInt(STACKS);
+      } while (heights[from] == 0);
+
+      var to = (from + 1 + random.nextInt(STACKS - 1)) % STACKS;
+      var count = 1 + random.nextInt(heights[from]);
+
+      heights[from] -= count;
+      heights[to] += count;
+
+      moves[i] = new int[] { count, from, to };
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void buildStacks() {
+    var random = new Random(SEED);
+
+    stacks = new Day05.CrateStack[STACKS];
+
+    for (int i = 0; i < STACKS; i++) {
+      stacks[i] = engine.newStack();
+
+      for (int crate = 0; crate < height; crate++)
+        stacks[i].push((char) ('A' + random.nextInt(26)));
+
+      // so the rope engine does not build its tree inside the measurement
+      stacks[i].size();
+      stacks[i].peek();
+    }
+  }
+
+  // CrateMover 9000
+  @Benchmark
+  public char moveOneAtATime() {
+    return runMoves(false);
+  }
+
+  // CrateMover 9001
+  @Benchmark
+  public char movePreservingOrder() {
+    return runMoves(true);
+  }
+
+  private char runMoves(boolean preserveOrder) {
+    for (var move : moves)
+      stacks[move[1]].moveTo(stacks[move[2]], move[0], preserveOrder);
+
+    return stacks[moves[MOVES - 1][2]].peek();
+  }
+}
@@ -0,0 +1,17 @@
+package io.github.mschout.aoc.puzzle;
+
+import io.github.mschout.aoc.AdventOfCodePuzzle;
+
+import java.nio.file.Path;
+
+public class Day06Benchmark extends PuzzleBenchmark {
+  @Override
+  protected int day() {
+    return 6;
+  }
+
+  @Override
+  protected AdventOfCodePuzzle newPuzzle(Path inputPath) throws Exception {
+    return new Day06(inputPath);
+  }
+}
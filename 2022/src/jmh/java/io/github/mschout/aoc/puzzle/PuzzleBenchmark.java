@@ -0,0 +1,79 @@
+package io.github.mschout.aoc.puzzle;
+
+import io.github.mschout.aoc.AdventOfCodePuzzle;
+import io.github.mschout.aoc.PuzzleRun;
+import io.github.mschout.aoc.generator.InputGenerators;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base class for the per-day benchmarks. Each subclass supplies the day number and how to
+ * construct the puzzle, and gets three benchmarks measured separately:
+ * <ul>
+ * <li>parse - constructing the puzzle. Days that parse lazily do very little here.</li>
+ * <li>partOne - partOne() on a freshly constructed puzzle.</li>
+ * <li>partTwo - partTwo() on a freshly constructed puzzle.</li>
+ * </ul>
+ * Setting the scale parameter (for example {@code -PjmhScale=1,10,100}) runs them on
+ * generated inputs of each size instead, to see how a day scales.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public abstract class PuzzleBenchmark {
+  private static final int YEAR = 2022;
+  private static final long SEED = 1;
+
+  // 0 for the real puzzle input, otherwise the scale of a generated input
+  @Param({ "0" })
+  public int scale;
+
+  private Path inputPath;
+
+  private AdventOfCodePuzzle puzzle;
+
+  protected abstract int day();
+
+  protected abstract AdventOfCodePuzzle newPuzzle(Path inputPath) throws Exception;
+
+  @Setup(Level.Trial)
+  public void locateInput() {
+    inputPath = scale > 0
+      ? InputGenerators.generate(YEAR, day(), scale, SEED)
+      : new PuzzleRun(YEAR, day(), false).getInputPath();
+  }
+
+  // Every invocation gets a fresh puzzle so that state left over from a previous
+  // invocation does not leak into the measurement.
+  @Setup(Level.Invocation)
+  public void preparePuzzle(BenchmarkParams params) throws Exception {
+    var benchmark = params.getBenchmark();
+
+    if (benchmark.endsWith(".parse"))
+      return;
+
+    puzzle = newPuzzle(inputPath);
+
+    // Some days fill in state during partOne() that partTwo() relies on.
+    if (benchmark.endsWith(".partTwo") && puzzle.partsShareState())
+      puzzle.partOne();
+  }
+
+  @Benchmark
+  public AdventOfCodePuzzle parse() throws Exception {
+    return newPuzzle(inputPath);
+  }
+
+  @Benchmark
+  public String partOne() throws Exception {
+    return puzzle.partOne();
+  }
+
+  @Benchmark
+  public String partTwo() throws Exception {
+    return puzzle.partTwo();
+  }
+}
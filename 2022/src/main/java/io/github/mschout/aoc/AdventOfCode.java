@@ -1,105 +1,133 @@
 package io.github.mschout.aoc;
 
-import com.google.common.base.Strings;
-import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
-
-import java.io.IOException;
-import java.io.PrintStream;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.net.http.HttpResponse.BodyHandlers;
-import java.nio.file.Files;
+
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
 
 @RequiredArgsConstructor
 public class AdventOfCode {
-  private static final String INPUT_PATH = "src/main/resources/puzzle-input";
-  private static final String RESULTS_PATH = "src/main/resources/puzzle-solutions";
-
   private final int year;
 
-  private final int day;
+  private final List<Integer> days;
+
+  // Maximum number of puzzle phases (parse, part one, part two) to run at the same time.
+  private final int threads;
 
-  @Getter(lazy = true)
-  private final Path inputPath = buildIntputPath();
+  // Use answers from the AnswerCache when the input and solver have not changed.
+  private final boolean useCache;
 
-  @Getter(lazy = true)
-  private final PrintStream output = buildOutputStream();
+  // Input file (or PuzzleInput.STDIN) to use for a day instead of the downloaded input,
+  // or null.
+  private final IntFunction<Path> inputs;
+
+  // Days that have a puzzle implementation for the given year.
+  public static List<Integer> availableDays(int year) {
+    return PuzzleRegistry.days(year);
+  }
 
   public int run() {
+    var executor = Executors.newFixedThreadPool(Math.max(1, threads));
+    var start = System.nanoTime();
+    var exitCode = 0;
+
     try {
-      var constructor = Class.forName(String.format("%s.puzzle.Day%02d", this.getClass().getPackageName(), day))
-        .getDeclaredConstructor(Path.class);
+      var futures = new ArrayList<CompletableFuture<PuzzleResult>>();
 
-      var puzzleDay = (AdventOfCodePuzzle) constructor.newInstance(getInputPath());
+      for (var day : days)
+        futures.add(new PuzzleRun(year, day, useCache, inputs.apply(day)).run(executor));
 
-      var partOneSolution = puzzleDay.partOne();
-      getOutput().println("Part One Answer: " + partOneSolution);
+      var results = new ArrayList<PuzzleResult>();
 
-      var partTwoSolution = puzzleDay.partTwo();
-      getOutput().println("Part Two Answer: " + partTwoSolution);
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          results.add(futures.get(i).get());
+        }
+        catch (ExecutionException e) {
+          System.err.println("Could not execute day " + days.get(i) + ": " + e.getCause().getLocalizedMessage());
+          e.getCause().printStackTrace();
+          exitCode = 1;
+        }
+      }
+
+      printTimings(results, System.nanoTime() - start);
     }
-    catch (Exception e) {
-      System.err.println("Could not execute day " + day + e.getLocalizedMessage());
-      e.printStackTrace();
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
       return 1;
     }
+    finally {
+      executor.shutdownNow();
+    }
 
-    return 0;
+    return exitCode;
   }
 
-  private Path buildIntputPath() {
-    var inputPath = Paths.get(INPUT_PATH, String.format("%04d/%02d.txt", year, day));
-
-    if (!inputPath.toFile().exists())
-      downloadPuzzleInput(inputPath);
+  /**
+   * Runs each day on its own, warmup times and then iterations more times, and prints the
+   * latency distribution of each phase. See {@link RepeatedRun}.
+   */
+  public int repeat(int warmup, int iterations) {
+    var exitCode = 0;
+
+    for (var day : days) {
+      try {
+        var summaries = new RepeatedRun(year, day, inputs.apply(day), warmup, iterations).run();
+        printLatencies(day, warmup, summaries);
+      }
+      catch (Exception e) {
+        System.err.println("Could not execute day " + day + ": " + e.getLocalizedMessage());
+        e.printStackTrace();
+        exitCode = 1;
+      }
+    }
 
-    return inputPath;
+    return exitCode;
   }
 
-  @SneakyThrows
-  private PrintStream buildOutputStream() {
-    var outputPath = Paths.get(RESULTS_PATH, String.format("%04d/%02d.txt", year, day));
-
-    var parentDir = outputPath.getParent().toFile();
-    if (!parentDir.exists())
-      parentDir.mkdirs();
+  private void printLatencies(int day, int warmup, List<LatencySummary> summaries) {
+    System.out.printf("Day %d: %d iterations after %d warmup%n", day, summaries.get(0).samples(), warmup);
+    System.out.printf("%8s %12s %12s %12s %12s %12s%n", "Phase", "Min", "p50", "p90", "p99", "Max");
+
+    for (var summary : summaries) {
+      System.out.printf("%8s %12s %12s %12s %12s %12s%n",
+        summary.phase(),
+        millis(summary.min()),
+        millis(summary.p50()),
+        millis(summary.p90()),
+        millis(summary.p99()),
+        millis(summary.max()));
+    }
 
-    return new PrintStream(Files.newOutputStream(outputPath));
+    System.out.println();
   }
 
-  // Fetch the puzzle input from advent of code and store in the input file
-  private void downloadPuzzleInput(Path inputPath) {
-    String session = System.getenv("SESSION");
-    if (Strings.isNullOrEmpty(session))
-      throw new RuntimeException("SESSION must be set in ENV!");
-
-    try {
-      inputPath.getParent().toFile().mkdirs();
-
-      HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
-
-      var uri = new URI(String.format("https://adventofcode.com/%d/day/%d/input", year, day));
-
-      HttpRequest request = HttpRequest.newBuilder(uri)
-        .header("Cookie", "session=" + session)
-        .build();
-
-      HttpResponse<String> response = client.send(request, BodyHandlers.ofString());
+  private void printTimings(List<PuzzleResult> results, long wallNanos) {
+    System.out.printf("%4s %12s %12s %12s %12s%n", "Day", "Parse", "Part One", "Part Two", "Total");
+
+    for (var result : results) {
+      if (result.cached()) {
+        System.out.printf("%4d %12s%n", result.day(), "(cached)");
+        continue;
+      }
+
+      System.out.printf("%4d %12s %12s %12s %12s%n",
+        result.day(),
+        millis(result.parse().wallNanos()),
+        millis(result.partOne().wallNanos()),
+        millis(result.partTwo().wallNanos()),
+        millis(result.totalNanos()));
+    }
 
-      if (response.statusCode() != 200)
-        throw new RuntimeException("Failed to download input file, response code=" + response.statusCode());
+    System.out.printf("Wall time: %s (%d threads)%n", millis(wallNanos), threads);
+  }
 
-      Files.writeString(inputPath, response.body());
-    }
-    catch (URISyntaxException | IOException | InterruptedException e) {
-      throw new RuntimeException("Failed to download input file", e);
-    }
+  private static String millis(long nanos) {
+    return String.format("%.3f ms", nanos / 1_000_000.0);
   }
 }
@@ -1,14 +1,62 @@
 package io.github.mschout.aoc;
 
+import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 @RequiredArgsConstructor
 public abstract class AdventOfCodePuzzle {
   protected final Path inputFile;
 
+  // Mapped the first time either part asks for it, then shared by both parts.
+  @Getter(value = AccessLevel.PROTECTED, lazy = true)
+  private final PuzzleInput input = openInput();
+
   public abstract String partOne() throws Exception;
 
   public abstract String partTwo() throws Exception;
+
+  // Puzzles whose partTwo() relies on state filled in by partOne() must return true, so
+  // the parts are run one after the other instead of at the same time.
+  public boolean partsShareState() {
+    return false;
+  }
+
+  /**
+   * Opens the input for one sequential pass, without mapping or loading it, so inputs of
+   * any size are read in constant memory. Standard input (see {@link PuzzleInput#STDIN})
+   * can only be read once, so puzzles using this should solve both parts in that pass.
+   */
+  protected InputTokenizer openTokenizer() throws IOException {
+    return new InputTokenizer(openChannel());
+  }
+
+  // Line by line version of openTokenizer()
+  protected BufferedReader openReader() throws IOException {
+    return new BufferedReader(new InputStreamReader(Channels.newInputStream(openChannel()), StandardCharsets.UTF_8));
+  }
+
+  // The raw input, for puzzles that do their own buffering. See openTokenizer().
+  protected ReadableByteChannel openChannel() throws IOException {
+    if (PuzzleInput.isStandardInput(inputFile))
+      return Channels.newChannel(System.in);
+
+    return FileChannel.open(inputFile, StandardOpenOption.READ);
+  }
+
+  @SneakyThrows
+  private PuzzleInput openInput() {
+    return PuzzleInput.open(inputFile);
+  }
 }
@@ -0,0 +1,138 @@
+package io.github.mschout.aoc;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Answers from earlier runs, stored under {@value #CACHE_PATH}.
+ * <p>
+ * Entries are keyed by a hash of the input bytes together with a hash of the solver's
+ * bytecode, so changing either the input or the solver makes the old entry unreachable.
+ * The bytecode hashed is every class in this project's packages, from the directory or jar
+ * the puzzle was loaded from. Puzzles depend on shared code (the tokenizer, grids, graph
+ * searches, collections), so hashing only the puzzle's own classes would keep returning
+ * answers from before a fix to any of it.
+ */
+@RequiredArgsConstructor
+public class AnswerCache {
+  private static final String CACHE_PATH = "src/main/resources/puzzle-cache";
+
+  // Class files under this path, in the code source, make up the solver
+  private static final String CODE_PREFIX = AnswerCache.class.getPackageName().replace('.', '/') + "/";
+
+  // The same for every puzzle, so only hashed once
+  private static final Map<Path, HashCode> codeHashes = new ConcurrentHashMap<>();
+
+  private final int year;
+
+  private final int day;
+
+  private final Path inputPath;
+
+  private final Class<? extends AdventOfCodePuzzle> puzzleClass;
+
+  @Getter(lazy = true)
+  private final Path entryPath = buildEntryPath();
+
+  public record Answers(String partOne, String partTwo) {
+  }
+
+  public Optional<Answers> lookup() throws IOException {
+    if (!Files.exists(getEntryPath()))
+      return Optional.empty();
+
+    var json = JsonParser.parseString(Files.readString(getEntryPath())).getAsJsonObject();
+
+    return Optional.of(new Answers(json.get("partOne").getAsString(), json.get("partTwo").getAsString()));
+  }
+
+  public void store(Answers answers) throws IOException {
+    var json = new JsonObject();
+    json.addProperty("partOne", answers.partOne());
+    json.addProperty("partTwo", answers.partTwo());
+
+    Files.createDirectories(getEntryPath().getParent());
+    Files.writeString(getEntryPath(), json.toString());
+  }
+
+  @SneakyThrows
+  private Path buildEntryPath() {
+    var inputHash = com.google.common.io.Files.asByteSource(inputPath.toFile()).hash(Hashing.sha256());
+
+    var key = Hashing.combineOrdered(Arrays.asList(inputHash, codeHash(puzzleClass)));
+
+    return Paths.get(CACHE_PATH, String.format("%04d/%02d/%s.json", year, day, key));
+  }
+
+  private static HashCode codeHash(Class<?> clazz) throws IOException {
+    var codeSource = clazz.getProtectionDomain().getCodeSource();
+
+    if (codeSource == null)
+      throw new IOException("No code source for " + clazz.getName());
+
+    try {
+      return codeHashes.computeIfAbsent(Path.of(codeSource.getLocation().toURI()), AnswerCache::hashCodeSource);
+    }
+    catch (URISyntaxException e) {
+      throw new IOException(e);
+    }
+  }
+
+  // Hash the name and contents of each class file under CODE_PREFIX, in name order.
+  @SneakyThrows
+  private static HashCode hashCodeSource(Path location) {
+    var hasher = Hashing.sha256().newHasher();
+
+    if (Files.isDirectory(location)) {
+      List<Path> classFiles;
+
+      try (var files = Files.walk(location.resolve(CODE_PREFIX))) {
+        classFiles = files.filter(file -> file.toString().endsWith(".class")).sorted().toList();
+      }
+
+      for (var classFile : classFiles) {
+        hasher.putString(location.relativize(classFile).toString(), StandardCharsets.UTF_8);
+        hasher.putBytes(Files.readAllBytes(classFile));
+      }
+    }
+    else {
+      // Only the classes of a jar, not the resources packed with them
+      try (var jar = new ZipFile(location.toFile())) {
+        var entries = jar.stream()
+          .filter(entry -> entry.getName().startsWith(CODE_PREFIX) && entry.getName().endsWith(".class"))
+          .sorted(Comparator.comparing(ZipEntry::getName))
+          .toList();
+
+        for (var entry : entries) {
+          hasher.putString(entry.getName(), StandardCharsets.UTF_8);
+
+          try (var in = jar.getInputStream(entry)) {
+            hasher.putBytes(in.readAllBytes());
+          }
+        }
+      }
+    }
+
+    return hasher.hash();
+  }
+}
@@ -1,18 +1,49 @@
 package io.github.mschout.aoc;
 
+import com.google.common.base.Splitter;
+import io.github.mschout.aoc.generator.InputGenerators;
 import picocli.CommandLine;
 import picocli.CommandLine.Option;
 
+import java.nio.file.Path;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
 import java.util.concurrent.Callable;
+import java.util.function.IntFunction;
 
 public class App implements Callable<Integer> {
   @Option(names = { "--year", "-y" }, description = "Puzzle Year")
   private int year = ZonedDateTime.now().get(ChronoField.YEAR);
 
-  @Option(names = { "--day", "-d" }, description = "Puzzle Day", required = true)
-  private int day;
+  @Option(names = { "--day", "-d" }, description = "Puzzle Day(s): a day (5), a range (2-15), a list (2,5,7-9) or all")
+  private String days;
+
+  @Option(names = { "--threads", "-t" }, description = "Number of puzzles to run at the same time")
+  private int threads = Runtime.getRuntime().availableProcessors();
+
+  @Option(names = { "--no-cache" }, description = "Always solve the puzzle, even if the answers are cached")
+  private boolean noCache = false;
+
+  @Option(names = { "--input", "-i" }, description = "Read the input from this file instead, or - for standard input (single day only)")
+  private Path input;
+
+  @Option(names = { "--warmup" }, description = "Unmeasured runs of each day before --repeat")
+  private int warmup = 0;
+
+  @Option(names = { "--repeat" }, description = "Run each day this many times with a fresh puzzle and print latency percentiles instead of answers")
+  private int repeat = 0;
+
+  @Option(names = { "--scale" }, description = "Solve a generated input this many times the size of a real one, instead of the puzzle input")
+  private int scale = 0;
+
+  @Option(names = { "--seed" }, description = "Random seed for --scale")
+  private long seed = 1;
+
+  @Option(names = { "--serve" }, description = "Serve puzzle runs on this localhost TCP port or Unix socket path instead (see PuzzleServer)")
+  private String serve;
 
   public static void main(String[] args) {
     int exitCode = new CommandLine(new App()).execute(args);
@@ -21,8 +52,59 @@ public class App implements Callable<Integer> {
 
   @Override
   public Integer call() throws Exception {
-    var aoc = new AdventOfCode(year, day);
+    if (serve != null)
+      return new PuzzleServer(PuzzleServer.parseAddress(serve), threads, !noCache).serve();
+
+    if (days == null)
+      throw new IllegalArgumentException("--day is required unless using --serve");
+
+    var selectedDays = parseDays(days);
+
+    if (input != null && selectedDays.size() != 1)
+      throw new IllegalArgumentException("--input can only be used with a single day");
+
+    IntFunction<Path> inputs = day -> input;
+
+    if (scale > 0) {
+      if (input != null)
+        throw new IllegalArgumentException("--input and --scale can not be used together");
+
+      inputs = day -> InputGenerators.generate(year, day, scale, seed);
+    }
+
+    var aoc = new AdventOfCode(year, selectedDays, threads, !noCache, inputs);
+
+    if (warmup > 0 || repeat > 0)
+      return aoc.repeat(warmup, Math.max(1, repeat));
 
     return aoc.run();
   }
+
+  private List<Integer> parseDays(String spec) {
+    if (spec.equalsIgnoreCase("all")) {
+      var available = AdventOfCode.availableDays(year);
+
+      if (available.isEmpty())
+        throw new IllegalArgumentException("No puzzles for year " + year);
+
+      return available;
+    }
+
+    var selected = new TreeSet<Integer>();
+
+    for (var item : Splitter.on(',').trimResults().omitEmptyStrings().split(spec)) {
+      var bounds = Splitter.on('-').trimResults().splitToList(item);
+
+      var from = Integer.parseInt(bounds.get(0));
+      var to = Integer.parseInt(bounds.get(bounds.size() - 1));
+
+      if (bounds.size() > 2 || from < 1 || to > 25 || from > to)
+        throw new IllegalArgumentException("Invalid day selection: " + item);
+
+      for (int day = from; day <= to; day++)
+        selected.add(day);
+    }
+
+    return new ArrayList<>(selected);
+  }
 }
@@ -0,0 +1,273 @@
+package io.github.mschout.aoc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+/**
+ * Cursor over the raw bytes of a puzzle input, for parsing without creating intermediate
+ * Strings. Only {@link #tokenString()} allocates, for the few values a puzzle needs to keep
+ * as text.
+ * <p>
+ * Numbers are found by skipping ahead to the next digit, so "move 2 from 3 to 4" is just
+ * three calls to {@link #nextInt()}. A '-' is read as a sign only when it is not directly
+ * after a digit, so "x=-2" gives -2 but "2-4" gives 2 and 4.
+ * <p>
+ * A tokenizer either covers a buffer holding the whole input (see
+ * {@link PuzzleInput#tokenizer()}), or reads from a channel through a small buffer that is
+ * refilled as it is consumed, so inputs of any size are parsed in constant memory.
+ */
+public class InputTokenizer implements AutoCloseable {
+  private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+  private final ReadableByteChannel channel;
+  private final int start;
+  private ByteBuffer buffer;
+  private int limit;
+  private int position;
+  private boolean endOfInput;
+
+  // The current token, valid until the cursor is moved by anything other than nextToken().
+  private int tokenStart = 0;
+  private int tokenEnd = 0;
+
+  public InputTokenizer(ByteBuffer buffer) {
+    this.channel = null;
+    this.buffer = buffer;
+    this.start = buffer.position();
+    this.position = start;
+    this.limit = buffer.limit();
+    this.endOfInput = true;
+  }
+
+  public InputTokenizer(ReadableByteChannel channel) {
+    this.channel = channel;
+    this.buffer = ByteBuffer.allocate(STREAM_BUFFER_SIZE);
+    this.start = 0;
+    this.position = 0;
+    this.limit = 0;
+    this.endOfInput = false;
+  }
+
+  public boolean hasRemaining() {
+    return available(0);
+  }
+
+  // Skips whitespace, and returns true if there is anything left after it.
+  public boolean hasNext() {
+    skipWhitespace();
+    return available(0);
+  }
+
+  public byte peek() {
+    checkRemaining();
+    return buffer.get(position);
+  }
+
+  public byte next() {
+    checkRemaining();
+    clearToken();
+    return buffer.get(position++);
+  }
+
+  public void skipWhitespace() {
+    clearToken();
+
+    while (available(0) && isWhitespace(buffer.get(position)))
+      position++;
+  }
+
+  // Moves past the next occurrence of b, or to the end of input if there is none.
+  public void skipUntil(byte b) {
+    clearToken();
+
+    while (available(0) && buffer.get(position++) != b) {
+      // keep going
+    }
+  }
+
+  public void skipLine() {
+    skipUntil((byte) '\n');
+  }
+
+  // Skips ahead to the next number on the current line. Returns false, leaving the cursor
+  // on the line terminator, if there are no more numbers on the line.
+  public boolean hasNumberOnLine() {
+    clearToken();
+
+    while (available(0) && !isNumberStart()) {
+      if (buffer.get(position) == '\n')
+        return false;
+
+      position++;
+    }
+
+    return available(0);
+  }
+
+  public int nextInt() {
+    return Math.toIntExact(nextLong());
+  }
+
+  public long nextLong() {
+    clearToken();
+
+    while (available(0) && !isNumberStart())
+      position++;
+
+    checkRemaining();
+
+    var negative = buffer.get(position) == '-';
+    if (negative)
+      position++;
+
+    long value = 0;
+
+    while (available(0)) {
+      var b = buffer.get(position);
+      if (!isDigit(b)) break;
+
+      value = value * 10 + (b - '0');
+      position++;
+    }
+
+    return negative ? -value : value;
+  }
+
+  /**
+   * Moves to the next whitespace separated token. The token can then be inspected with
+   * the token* methods.
+   * @return false if there are no more tokens
+   */
+  public boolean nextToken() {
+    skipWhitespace();
+
+    if (!available(0))
+      return false;
+
+    tokenStart = position;
+
+    while (available(0) && !isWhitespace(buffer.get(position)))
+      position++;
+
+    tokenEnd = position;
+
+    return true;
+  }
+
+  public int tokenLength() {
+    return tokenEnd - tokenStart;
+  }
+
+  public byte tokenByte(int index) {
+    return buffer.get(tokenStart + index);
+  }
+
+  // Compare the current token to an ASCII string
+  public boolean tokenEquals(String ascii) {
+    if (ascii.length() != tokenLength())
+      return false;
+
+    for (int i = 0; i < ascii.length(); i++) {
+      if (buffer.get(tokenStart + i) != ascii.charAt(i))
+        return false;
+    }
+
+    return true;
+  }
+
+  public String tokenString() {
+    var bytes = new byte[tokenLength()];
+    buffer.get(tokenStart, bytes);
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (channel != null)
+      channel.close();
+  }
+
+  private boolean isNumberStart() {
+    var b = buffer.get(position);
+
+    if (isDigit(b))
+      return true;
+
+    if (b != '-' || (position > start && isDigit(buffer.get(position - 1))))
+      return false;
+
+    return available(1) && isDigit(buffer.get(position + 1));
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+  }
+
+  private void clearToken() {
+    tokenStart = position;
+    tokenEnd = position;
+  }
+
+  private void checkRemaining() {
+    if (!available(0))
+      throw new NoSuchElementException("End of input");
+  }
+
+  // True if the byte at position + ahead is available, reading more input if needed.
+  private boolean available(int ahead) {
+    while (position + ahead >= limit) {
+      if (!fill())
+        return false;
+    }
+
+    return true;
+  }
+
+  // Read more from the channel. The current token and the byte before the cursor (for sign
+  // detection) are kept, everything before them is discarded.
+  private boolean fill() {
+    if (endOfInput)
+      return false;
+
+    var keep = Math.max(0, Math.min(tokenStart, position - 1));
+
+    if (keep > 0) {
+      buffer.limit(limit).position(keep);
+      buffer.compact();
+
+      limit -= keep;
+      position -= keep;
+      tokenStart -= keep;
+      tokenEnd -= keep;
+    }
+    else if (limit == buffer.capacity()) {
+      // a single token fills the buffer
+      buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.limit(limit).position(0));
+    }
+
+    try {
+      buffer.limit(buffer.capacity()).position(limit);
+
+      var read = channel.read(buffer);
+
+      if (read < 0)
+        endOfInput = true;
+      else
+        limit += read;
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    return true;
+  }
+}
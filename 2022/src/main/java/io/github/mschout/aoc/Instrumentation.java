@@ -0,0 +1,80 @@
+package io.github.mschout.aoc;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+
+// Runs a puzzle phase on the current thread and records what it cost.
+public final class Instrumentation {
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+  private Instrumentation() {
+  }
+
+  public record Measured<T>(T value, PhaseMetrics metrics) {
+  }
+
+  // Checked exceptions thrown by the phase are rethrown wrapped in a CompletionException.
+  public static <T> Measured<T> measure(String phase, Callable<T> action) {
+    var gcCountBefore = gcCount();
+    var gcMillisBefore = gcMillis();
+    var allocatedBefore = allocatedBytes();
+    var cpuBefore = cpuNanos();
+    var start = System.nanoTime();
+
+    T value;
+    try {
+      value = action.call();
+    }
+    catch (RuntimeException e) {
+      throw e;
+    }
+    catch (Exception e) {
+      throw new CompletionException(e);
+    }
+
+    var wall = System.nanoTime() - start;
+    var cpu = cpuNanos();
+    var allocated = allocatedBytes();
+
+    var metrics = new PhaseMetrics(
+      phase,
+      wall,
+      cpuBefore < 0 ? -1 : cpu - cpuBefore,
+      allocatedBefore < 0 ? -1 : allocated - allocatedBefore,
+      gcCount() - gcCountBefore,
+      gcMillis() - gcMillisBefore);
+
+    return new Measured<>(value, metrics);
+  }
+
+  private static long cpuNanos() {
+    return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+  }
+
+  private static long allocatedBytes() {
+    // Allocation tracking is a HotSpot extension of ThreadMXBean
+    if (THREADS instanceof com.sun.management.ThreadMXBean hotspot && hotspot.isThreadAllocatedMemoryEnabled())
+      return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+
+    return -1;
+  }
+
+  private static long gcCount() {
+    return ManagementFactory.getGarbageCollectorMXBeans()
+      .stream()
+      .mapToLong(GarbageCollectorMXBean::getCollectionCount)
+      .filter(count -> count > 0)
+      .sum();
+  }
+
+  private static long gcMillis() {
+    return ManagementFactory.getGarbageCollectorMXBeans()
+      .stream()
+      .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+      .filter(millis -> millis > 0)
+      .sum();
+  }
+}
@@ -0,0 +1,30 @@
+package io.github.mschout.aoc;
+
+import java.util.Arrays;
+
+// Distribution of the wall clock times of one phase over repeated runs, in nanoseconds.
+public record LatencySummary(String phase, int samples, long min, long p50, long p90, long p99, long max) {
+  public static LatencySummary of(String phase, long[] nanos) {
+    if (nanos.length == 0)
+      throw new IllegalArgumentException("No samples for " + phase);
+
+    var sorted = nanos.clone();
+    Arrays.sort(sorted);
+
+    return new LatencySummary(
+      phase,
+      sorted.length,
+      sorted[0],
+      percentile(sorted, 50),
+      percentile(sorted, 90),
+      percentile(sorted, 99),
+      sorted[sorted.length - 1]);
+  }
+
+  // Nearest rank percentile
+  private static long percentile(long[] sorted, int percent) {
+    var rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+
+    return sorted[Math.max(0, rank - 1)];
+  }
+}
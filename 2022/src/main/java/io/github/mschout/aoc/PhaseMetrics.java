@@ -0,0 +1,37 @@
+package io.github.mschout.aoc;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Cost of one phase (parse, part one, part two) of a puzzle run.
+ * <p>
+ * Wall time, CPU time and allocated bytes are for the thread that ran the phase. The GC
+ * numbers are for the whole JVM while the phase ran, so they also include collections
+ * caused by other phases running at the same time. Values the JVM can not measure are -1.
+ */
+public record PhaseMetrics(
+  String phase,
+  long wallNanos,
+  long cpuNanos,
+  long allocatedBytes,
+  long gcCount,
+  long gcMillis) {
+
+  // A phase that was not run
+  public static PhaseMetrics skipped(String phase) {
+    return new PhaseMetrics(phase, 0, 0, 0, 0, 0);
+  }
+
+  public JsonObject toJson() {
+    var json = new JsonObject();
+
+    json.addProperty("phase", phase);
+    json.addProperty("wallNanos", wallNanos);
+    json.addProperty("cpuNanos", cpuNanos);
+    json.addProperty("allocatedBytes", allocatedBytes);
+    json.addProperty("gcCount", gcCount);
+    json.addProperty("gcMillis", gcMillis);
+
+    return json;
+  }
+}
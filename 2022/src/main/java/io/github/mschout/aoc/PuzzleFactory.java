@@ -0,0 +1,9 @@
+package io.github.mschout.aoc;
+
+import java.nio.file.Path;
+
+// Constructor reference for a puzzle, see the generated PuzzleRegistry.
+@FunctionalInterface
+public interface PuzzleFactory {
+  AdventOfCodePuzzle create(Path inputFile) throws Exception;
+}
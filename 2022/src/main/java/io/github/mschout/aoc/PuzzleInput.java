@@ -0,0 +1,158 @@
+package io.github.mschout.aoc;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Puzzle input file, memory mapped once and shared by both parts of a puzzle. Standard
+ * input (an input path of "-") cannot be mapped, so it is read into memory instead.
+ * <p>
+ * The byte views ({@link #bytes()}, {@link #forEachLine(Consumer)},
+ * {@link #splitLines(int)}) share the mapped memory without copying. The text views are
+ * decoded on first use and then cached.
+ * <p>
+ * A long running process can {@link #enableCache(int) enable caching}, so that puzzles
+ * opening an unchanged file again share the mapping and the decoded text.
+ */
+public class PuzzleInput {
+  public static final Path STDIN = Path.of("-");
+
+  private static volatile Cache<CacheKey, PuzzleInput> cache = null;
+
+  // A file is only reused while its size and modification time stay the same
+  private record CacheKey(Path path, long size, FileTime lastModified) {
+  }
+
+  private final ByteBuffer buffer;
+
+  @Getter(lazy = true)
+  private final String text = StandardCharsets.UTF_8.decode(bytes()).toString();
+
+  @Getter(lazy = true)
+  private final List<String> lines = getText().lines().toList();
+
+  private PuzzleInput(ByteBuffer buffer) {
+    this.buffer = buffer.asReadOnlyBuffer();
+  }
+
+  public static boolean isStandardInput(Path inputFile) {
+    return STDIN.equals(inputFile);
+  }
+
+  // True for files open() can map, rather than read standard input fully into memory.
+  public static boolean isMappable(Path inputFile) throws IOException {
+    return !isStandardInput(inputFile) && Files.size(inputFile) <= Integer.MAX_VALUE;
+  }
+
+  public static void enableCache(int maximumInputs) {
+    cache = CacheBuilder.newBuilder().maximumSize(maximumInputs).build();
+  }
+
+  public static PuzzleInput open(Path inputFile) throws IOException {
+    if (isStandardInput(inputFile))
+      return new PuzzleInput(ByteBuffer.wrap(System.in.readAllBytes()));
+
+    var openInputs = cache;
+
+    if (openInputs == null)
+      return map(inputFile);
+
+    var attributes = Files.readAttributes(inputFile, BasicFileAttributes.class);
+    var key = new CacheKey(inputFile.toAbsolutePath().normalize(), attributes.size(), attributes.lastModifiedTime());
+
+    try {
+      return openInputs.get(key, () -> map(inputFile));
+    }
+    catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private static PuzzleInput map(Path inputFile) throws IOException {
+    try (var channel = FileChannel.open(inputFile, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE)
+        throw new IOException(inputFile + " is too large to map (" + channel.size() + " bytes)");
+
+      // The mapping stays valid after the channel is closed.
+      return new PuzzleInput(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  public int size() {
+    return buffer.limit();
+  }
+
+  // A new read only view of the whole input, positioned at the start.
+  public ByteBuffer bytes() {
+    return buffer.duplicate();
+  }
+
+  // A tokenizer positioned at the start of the input.
+  public InputTokenizer tokenizer() {
+    return new InputTokenizer(bytes());
+  }
+
+  // Call action with a view of each line, without the line terminator.
+  public void forEachLine(Consumer<ByteBuffer> action) {
+    int lineStart = 0;
+    int limit = buffer.limit();
+
+    for (int i = 0; i < limit; i++) {
+      if (buffer.get(i) == '\n') {
+        action.accept(line(lineStart, i));
+        lineStart = i + 1;
+      }
+    }
+
+    // last line with no trailing newline
+    if (lineStart < limit)
+      action.accept(line(lineStart, limit));
+  }
+
+  /**
+   * Split the input into at most parts views of about the same size, each made of whole
+   * lines, so they can be processed in parallel. Small inputs give fewer, or just one.
+   */
+  public List<ByteBuffer> splitLines(int parts) {
+    var chunks = new ArrayList<ByteBuffer>(parts);
+    int limit = buffer.limit();
+    int start = 0;
+
+    for (int part = 1; part <= parts && start < limit; part++) {
+      var end = Math.max(start, (int) ((long) limit * part / parts));
+
+      // move the end to just past the next line terminator
+      while (end < limit && (end == start || buffer.get(end - 1) != '\n'))
+        end++;
+
+      chunks.add(buffer.slice(start, end - start));
+      start = end;
+    }
+
+    return chunks;
+  }
+
+  private ByteBuffer line(int start, int end) {
+    if (end > start && buffer.get(end - 1) == '\r')
+      end--;
+
+    return buffer.slice(start, end - start);
+  }
+}
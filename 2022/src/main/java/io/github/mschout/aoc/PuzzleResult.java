@@ -0,0 +1,36 @@
+package io.github.mschout.aoc;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+// cached is true when the answers came from the AnswerCache and no phases were run.
+public record PuzzleResult(
+  int day,
+  boolean cached,
+  AnswerCache.Answers answers,
+  PhaseMetrics parse,
+  PhaseMetrics partOne,
+  PhaseMetrics partTwo) {
+
+  // Wall clock time of all phases, in nanoseconds.
+  public long totalNanos() {
+    return parse.wallNanos() + partOne.wallNanos() + partTwo.wallNanos();
+  }
+
+  public JsonObject toJson() {
+    var phases = new JsonArray();
+    phases.add(parse.toJson());
+    phases.add(partOne.toJson());
+    phases.add(partTwo.toJson());
+
+    var json = new JsonObject();
+    json.addProperty("day", day);
+    json.addProperty("cached", cached);
+    json.addProperty("partOne", answers.partOne());
+    json.addProperty("partTwo", answers.partTwo());
+    json.addProperty("totalNanos", totalNanos());
+    json.add("phases", phases);
+
+    return json;
+  }
+}
@@ -0,0 +1,223 @@
+package io.github.mschout.aoc;
+
+import com.google.common.base.Strings;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static io.github.mschout.aoc.Instrumentation.measure;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+
+/**
+ * A single run of one puzzle day: locates (or downloads) the input, constructs the puzzle,
+ * solves both parts, and writes the answers to the results file.
+ * <p>
+ * Unless the puzzle says its parts share state, part one and part two are solved at the
+ * same time. The answers are always written in order once both parts are done, together
+ * with the metrics for each phase (see {@link Instrumentation}) in a .metrics.json file.
+ * <p>
+ * When caching is enabled and the {@link AnswerCache} has answers for this input and
+ * solver, those are written instead and the puzzle is not run at all. Answers for standard
+ * input are never cached, since it can only be read once.
+ */
+@RequiredArgsConstructor
+public class PuzzleRun {
+  private static final String INPUT_PATH = "src/main/resources/puzzle-input";
+  private static final String RESULTS_PATH = "src/main/resources/puzzle-solutions";
+
+  private final int year;
+
+  private final int day;
+
+  private final boolean useCache;
+
+  // Input to use instead of the downloaded puzzle input, or null
+  private final Path inputOverride;
+
+  @Getter(lazy = true)
+  private final Path inputPath = buildIntputPath();
+
+  @Getter(lazy = true)
+  private final AnswerCache answerCache = new AnswerCache(year, day, getInputPath(), puzzleClass());
+
+  @Getter(lazy = true)
+  private final PrintStream output = buildOutputStream();
+
+  public PuzzleRun(int year, int day, boolean useCache) {
+    this(year, day, useCache, null);
+  }
+
+  public CompletableFuture<PuzzleResult> run(Executor executor) {
+    return supplyAsync(this::cachedAnswers, executor)
+      .thenCompose(cached -> cached
+        .map(answers -> CompletableFuture.completedFuture(useCachedAnswers(answers)))
+        .orElseGet(() -> solve(executor)));
+  }
+
+  private CompletableFuture<PuzzleResult> solve(Executor executor) {
+    return supplyAsync(this::parse, executor)
+      .thenCompose(parsed -> {
+        var puzzle = parsed.value();
+
+        var partOne = supplyAsync(() -> measure("partOne", puzzle::partOne), executor);
+
+        var partTwo = puzzle.partsShareState()
+          ? partOne.thenApplyAsync(ignored -> measure("partTwo", puzzle::partTwo), executor)
+          : supplyAsync(() -> measure("partTwo", puzzle::partTwo), executor);
+
+        return partOne.thenCombine(partTwo, (one, two) -> {
+          var answers = new AnswerCache.Answers(one.value(), two.value());
+          writeAnswers(answers);
+
+          if (cacheable())
+            storeAnswers(answers);
+
+          var result = new PuzzleResult(day, false, answers, parsed.metrics(), one.metrics(), two.metrics());
+          writeMetrics(result);
+
+          return result;
+        });
+      });
+  }
+
+  @SneakyThrows
+  private Optional<AnswerCache.Answers> cachedAnswers() {
+    if (!cacheable())
+      return Optional.empty();
+
+    return getAnswerCache().lookup();
+  }
+
+  private boolean cacheable() {
+    return useCache && !PuzzleInput.isStandardInput(getInputPath());
+  }
+
+  @SneakyThrows
+  private void storeAnswers(AnswerCache.Answers answers) {
+    getAnswerCache().store(answers);
+  }
+
+  private PuzzleResult useCachedAnswers(AnswerCache.Answers answers) {
+    writeAnswers(answers);
+
+    return new PuzzleResult(
+      day,
+      true,
+      answers,
+      PhaseMetrics.skipped("parse"),
+      PhaseMetrics.skipped("partOne"),
+      PhaseMetrics.skipped("partTwo"));
+  }
+
+  private void writeAnswers(AnswerCache.Answers answers) {
+    getOutput().println("Part One Answer: " + answers.partOne());
+    getOutput().println("Part Two Answer: " + answers.partTwo());
+    getOutput().close();
+  }
+
+  private Class<? extends AdventOfCodePuzzle> puzzleClass() {
+    return PuzzleRegistry.puzzleClass(year, day).orElseThrow(this::noSuchPuzzle);
+  }
+
+  private IllegalArgumentException noSuchPuzzle() {
+    return new IllegalArgumentException("No puzzle implemented for " + year + " day " + day);
+  }
+
+  private Instrumentation.Measured<AdventOfCodePuzzle> parse() {
+    var factory = PuzzleRegistry.lookup(year, day).orElseThrow(this::noSuchPuzzle);
+
+    // Locate (or download) the input first, so that is not counted as parsing.
+    var inputPath = getInputPath();
+
+    return measure("parse", () -> factory.create(inputPath));
+  }
+
+  @SneakyThrows
+  private void writeMetrics(PuzzleResult result) {
+    var phases = new JsonArray();
+    phases.add(result.parse().toJson());
+    phases.add(result.partOne().toJson());
+    phases.add(result.partTwo().toJson());
+
+    var json = new JsonObject();
+    json.addProperty("year", year);
+    json.addProperty("day", day);
+    json.addProperty("timestamp", Instant.now().toString());
+    json.add("phases", phases);
+
+    var metricsPath = Paths.get(RESULTS_PATH, String.format("%04d/%02d.metrics.json", year, day));
+
+    Files.writeString(metricsPath, new GsonBuilder().setPrettyPrinting().create().toJson(json));
+  }
+
+  private Path buildIntputPath() {
+    if (inputOverride != null)
+      return inputOverride;
+
+    var inputPath = Paths.get(INPUT_PATH, String.format("%04d/%02d.txt", year, day));
+
+    if (!inputPath.toFile().exists())
+      downloadPuzzleInput(inputPath);
+
+    return inputPath;
+  }
+
+  @SneakyThrows
+  private PrintStream buildOutputStream() {
+    var outputPath = Paths.get(RESULTS_PATH, String.format("%04d/%02d.txt", year, day));
+
+    var parentDir = outputPath.getParent().toFile();
+    if (!parentDir.exists())
+      parentDir.mkdirs();
+
+    return new PrintStream(Files.newOutputStream(outputPath));
+  }
+
+  // Fetch the puzzle input from advent of code and store in the input file
+  private void downloadPuzzleInput(Path inputPath) {
+    String session = System.getenv("SESSION");
+    if (Strings.isNullOrEmpty(session))
+      throw new RuntimeException("SESSION must be set in ENV!");
+
+    try {
+      inputPath.getParent().toFile().mkdirs();
+
+      HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+      var uri = new URI(String.format("https://adventofcode.com/%d/day/%d/input", year, day));
+
+      HttpRequest request = HttpRequest.newBuilder(uri)
+        .header("Cookie", "session=" + session)
+        .build();
+
+      HttpResponse<String> response = client.send(request, BodyHandlers.ofString());
+
+      if (response.statusCode() != 200)
+        throw new RuntimeException("Failed to download input file, response code=" + response.statusCode());
+
+      Files.writeString(inputPath, response.body());
+    }
+    catch (URISyntaxException | IOException | InterruptedException e) {
+      throw new RuntimeException("Failed to download input file", e);
+    }
+  }
+}
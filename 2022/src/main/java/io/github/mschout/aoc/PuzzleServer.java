@@ -0,0 +1,158 @@
+package io.github.mschout.aoc;
+
+import com.google.common.util.concurrent.Striped;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Keeps one JVM running and solves puzzles on request, so repeated runs skip JVM startup
+ * and run already compiled code. Listens on a localhost TCP port or a Unix socket.
+ * <p>
+ * Each line sent to the server is a request, and gets one line back as the response:
+ * <pre>
+ * {"year": 2022, "day": 5, "input": "/path/to/input.txt"}
+ * {"year": 2022, "day": 5, "cached": false, "partOne": "...", "partTwo": "...", "totalNanos": ..., "phases": [...]}
+ * </pre>
+ * "input" is optional and defaults to the downloaded puzzle input. Failed requests get
+ * {"error": "..."} instead. For example: {@code echo '{"year":2022,"day":5}' | nc -U aoc.sock}
+ * <p>
+ * Requests are solved by {@link PuzzleRun} just like a normal run, so the answers and
+ * metrics files are written as well. Requests for the same day are solved one at a time.
+ * Mapped inputs are cached (see {@link PuzzleInput#enableCache(int)}) while the files do
+ * not change.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class PuzzleServer {
+  private static final int CACHED_INPUTS = 64;
+
+  private final SocketAddress address;
+
+  // Maximum number of puzzle phases to run at the same time, over all connections.
+  private final int threads;
+
+  private final boolean useCache;
+
+  private final Striped<Lock> dayLocks = Striped.lock(32);
+
+  // A TCP port on localhost, or the path of a Unix socket.
+  public static SocketAddress parseAddress(String spec) {
+    if (spec.chars().allMatch(Character::isDigit))
+      return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(spec));
+
+    return UnixDomainSocketAddress.of(spec);
+  }
+
+  public int serve() throws IOException {
+    PuzzleInput.enableCache(CACHED_INPUTS);
+
+    var executor = Executors.newFixedThreadPool(Math.max(1, threads));
+    var connections = Executors.newCachedThreadPool();
+
+    try (var server = openServer()) {
+      log.info("Serving puzzle runs on {}", address);
+
+      while (true) {
+        var connection = server.accept();
+        connections.execute(() -> handle(connection, executor));
+      }
+    }
+    finally {
+      connections.shutdownNow();
+      executor.shutdownNow();
+
+      if (address instanceof UnixDomainSocketAddress unixAddress)
+        Files.deleteIfExists(unixAddress.getPath());
+    }
+  }
+
+  private ServerSocketChannel openServer() throws IOException {
+    var family = address instanceof UnixDomainSocketAddress ? StandardProtocolFamily.UNIX : StandardProtocolFamily.INET;
+
+    return ServerSocketChannel.open(family).bind(address);
+  }
+
+  private void handle(SocketChannel connection, Executor executor) {
+    try (connection;
+         var reader = new BufferedReader(Channels.newReader(connection, StandardCharsets.UTF_8));
+         Writer writer = Channels.newWriter(connection, StandardCharsets.UTF_8)) {
+      String line;
+
+      while ((line = reader.readLine()) != null) {
+        if (line.isBlank()) continue;
+
+        writer.write(respond(line, executor).toString());
+        writer.write('\n');
+        writer.flush();
+      }
+    }
+    catch (IOException e) {
+      log.warn("Connection failed: {}", e.getMessage());
+    }
+  }
+
+  private JsonObject respond(String line, Executor executor) {
+    try {
+      var request = JsonParser.parseString(line).getAsJsonObject();
+      var year = request.get("year").getAsInt();
+      var day = request.get("day").getAsInt();
+      var input = request.has("input") ? Path.of(request.get("input").getAsString()) : null;
+
+      if (PuzzleInput.isStandardInput(input))
+        throw new IllegalArgumentException("The server can not read standard input");
+
+      var lock = dayLocks.get(year * 100 + day);
+      lock.lock();
+
+      try {
+        var response = new PuzzleRun(year, day, useCache, input).run(executor).get().toJson();
+        response.addProperty("year", year);
+
+        return response;
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+    catch (ExecutionException e) {
+      return error(e.getCause());
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return error(e);
+    }
+    catch (RuntimeException e) {
+      return error(e);
+    }
+  }
+
+  private JsonObject error(Throwable e) {
+    log.warn("Request failed", e);
+
+    var json = new JsonObject();
+    json.addProperty("error", String.valueOf(e.getMessage()));
+
+    return json;
+  }
+}
@@ -0,0 +1,76 @@
+package io.github.mschout.aoc;
+
+import lombok.RequiredArgsConstructor;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static io.github.mschout.aoc.Instrumentation.measure;
+
+/**
+ * Solves one puzzle day over and over, to see how it performs once the JIT has compiled
+ * it rather than in a single cold run. Every iteration constructs a fresh puzzle and then
+ * runs part one and part two one after the other on the calling thread.
+ * <p>
+ * The first warmup iterations are not measured. Answers are not written to the results
+ * file, but every iteration must give the same answers as the first one.
+ */
+@RequiredArgsConstructor
+public class RepeatedRun {
+  private final int year;
+
+  private final int day;
+
+  // Input to use instead of the downloaded puzzle input, or null
+  private final Path input;
+
+  private final int warmup;
+
+  private final int iterations;
+
+  public List<LatencySummary> run() throws Exception {
+    if (PuzzleInput.isStandardInput(input))
+      throw new IllegalArgumentException("Standard input can only be read once, it can not be used for repeated runs");
+
+    var factory = PuzzleRegistry.lookup(year, day)
+      .orElseThrow(() -> new IllegalArgumentException("No puzzle implemented for " + year + " day " + day));
+
+    var inputPath = new PuzzleRun(year, day, false, input).getInputPath();
+
+    var parse = new long[iterations];
+    var partOne = new long[iterations];
+    var partTwo = new long[iterations];
+    var total = new long[iterations];
+
+    AnswerCache.Answers expected = null;
+
+    for (int i = -warmup; i < iterations; i++) {
+      var parsed = measure("parse", () -> factory.create(inputPath));
+      var puzzle = parsed.value();
+
+      var one = measure("partOne", puzzle::partOne);
+      var two = measure("partTwo", puzzle::partTwo);
+
+      var answers = new AnswerCache.Answers(one.value(), two.value());
+
+      if (expected == null)
+        expected = answers;
+      else if (!expected.equals(answers))
+        throw new IllegalStateException("Day " + day + " gave " + answers + " after first giving " + expected);
+
+      if (i < 0)
+        continue;
+
+      parse[i] = parsed.metrics().wallNanos();
+      partOne[i] = one.metrics().wallNanos();
+      partTwo[i] = two.metrics().wallNanos();
+      total[i] = parse[i] + partOne[i] + partTwo[i];
+    }
+
+    return List.of(
+      LatencySummary.of("parse", parse),
+      LatencySummary.of("partOne", partOne),
+      LatencySummary.of("partTwo", partTwo),
+      LatencySummary.of("total", total));
+  }
+}
@@ -0,0 +1,200 @@
+package io.github.mschout.aoc.collect;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * A set of (x, y) points for dense regions, in the style of a roaring bitmap.
+ * <p>
+ * The plane is split into 256 x 256 tiles. Each tile that has any points in it gets a
+ * container, holding the 16 bit offsets of its points either as a sorted array (while the
+ * tile is sparse) or as a 65536 bit bitmap (once it has more than {@value #ARRAY_LIMIT}
+ * points), so a point costs between 2 bytes in a sparse tile and 1 bit in a full one.
+ */
+public class CoordinateBitmap {
+  private static final int TILE_BITS = 8;
+  private static final int TILE_MASK = (1 << TILE_BITS) - 1;
+
+  // Past this an array container is larger than a bitmap container
+  private static final int ARRAY_LIMIT = 4096;
+
+  private final Map<Long, Container> tiles = new HashMap<>();
+
+  // Returns true if the point was not already in the set.
+  public boolean add(int x, int y) {
+    var key = tileKey(x, y);
+    var container = tiles.getOrDefault(key, Container.EMPTY);
+
+    var before = container.cardinality();
+    container = container.add(offset(x, y));
+
+    if (container.cardinality() == before)
+      return false;
+
+    tiles.put(key, container);
+
+    return true;
+  }
+
+  // Add the points fromX (inclusive) to toX (exclusive) on row y.
+  public void addRow(int y, int fromX, int toX) {
+    var x = fromX;
+
+    while (x < toX) {
+      // the rest of the row within this tile
+      var tileEnd = (int) Math.min(toX, ((long) x | TILE_MASK) + 1);
+      var key = tileKey(x, y);
+      var container = tiles.getOrDefault(key, Container.EMPTY);
+
+      for (; x < tileEnd; x++)
+        container = container.add(offset(x, y));
+
+      tiles.put(key, container);
+    }
+  }
+
+  public boolean contains(int x, int y) {
+    var container = tiles.get(tileKey(x, y));
+
+    return container != null && container.contains(offset(x, y));
+  }
+
+  public long cardinality() {
+    long total = 0;
+
+    for (var container : tiles.values())
+      total += container.cardinality();
+
+    return total;
+  }
+
+  // Call action with each point in the set, packed with Coordinates.pack(), in no
+  // particular order.
+  public void forEach(LongConsumer action) {
+    tiles.forEach((key, container) -> {
+      var tileX = Coordinates.x(key) << TILE_BITS;
+      var tileY = Coordinates.y(key) << TILE_BITS;
+
+      container.forEach(offset -> action.accept(Coordinates.pack(tileX | (offset >> TILE_BITS), tileY | (offset & TILE_MASK))));
+    });
+  }
+
+  private static long tileKey(int x, int y) {
+    return Coordinates.pack(x >> TILE_BITS, y >> TILE_BITS);
+  }
+
+  private static char offset(int x, int y) {
+    return (char) (((x & TILE_MASK) << TILE_BITS) | (y & TILE_MASK));
+  }
+
+  private interface Container {
+    Container EMPTY = new ArrayContainer();
+
+    // Returns the container now holding the points, which may be a new one.
+    Container add(char offset);
+
+    boolean contains(char offset);
+
+    int cardinality();
+
+    void forEach(IntConsumer action);
+  }
+
+  private static class ArrayContainer implements Container {
+    private char[] offsets = new char[0];
+    private int size = 0;
+
+    @Override
+    public Container add(char offset) {
+      var at = Arrays.binarySearch(offsets, 0, size, offset);
+      if (at >= 0)
+        return this;
+
+      if (size == ARRAY_LIMIT)
+        return toBitmap().add(offset);
+
+      // the shared empty container is never modified
+      var container = this == EMPTY ? new ArrayContainer() : this;
+      container.insert(-at - 1, offset);
+
+      return container;
+    }
+
+    @Override
+    public boolean contains(char offset) {
+      return Arrays.binarySearch(offsets, 0, size, offset) >= 0;
+    }
+
+    @Override
+    public int cardinality() {
+      return size;
+    }
+
+    @Override
+    public void forEach(IntConsumer action) {
+      for (int i = 0; i < size; i++)
+        action.accept(offsets[i]);
+    }
+
+    private void insert(int at, char offset) {
+      if (size == offsets.length)
+        offsets = Arrays.copyOf(offsets, Math.max(4, Math.min(ARRAY_LIMIT, size * 2)));
+
+      System.arraycopy(offsets, at, offsets, at + 1, size - at);
+      offsets[at] = offset;
+      size++;
+    }
+
+    private BitmapContainer toBitmap() {
+      var bitmap = new BitmapContainer();
+
+      for (int i = 0; i < size; i++)
+        bitmap.add(offsets[i]);
+
+      return bitmap;
+    }
+  }
+
+  private static class BitmapContainer implements Container {
+    private final long[] words = new long[(1 << (2 * TILE_BITS)) / Long.SIZE];
+    private int cardinality = 0;
+
+    @Override
+    public Container add(char offset) {
+      var word = offset >>> 6;
+      var bit = 1L << offset;
+
+      if ((words[word] & bit) == 0) {
+        words[word] |= bit;
+        cardinality++;
+      }
+
+      return this;
+    }
+
+    @Override
+    public boolean contains(char offset) {
+      return (words[offset >>> 6] & (1L << offset)) != 0;
+    }
+
+    @Override
+    public int cardinality() {
+      return cardinality;
+    }
+
+    @Override
+    public void forEach(IntConsumer action) {
+      for (int word = 0; word < words.length; word++) {
+        var bits = words[word];
+
+        while (bits != 0) {
+          action.accept(word * Long.SIZE + Long.numberOfTrailingZeros(bits));
+          bits &= bits - 1;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package io.github.mschout.aoc.collect;
+
+/**
+ * Packs an (x, y) pair of ints into a single long, x in the high half and y in the low
+ * half, so a point can be kept in a {@link LongHashSet} without allocating an object for
+ * it.
+ */
+public final class Coordinates {
+  private Coordinates() {
+  }
+
+  public static long pack(int x, int y) {
+    return ((long) x << 32) | (y & 0xFFFFFFFFL);
+  }
+
+  public static int x(long packed) {
+    return (int) (packed >> 32);
+  }
+
+  public static int y(long packed) {
+    return (int) packed;
+  }
+}
@@ -0,0 +1,225 @@
+package io.github.mschout.aoc.collect;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A static index over closed int intervals [start, end], for counting and listing the
+ * intervals that overlap, contain, or are contained by a query interval without looking at
+ * every one of them. Intervals are identified by their position in the arrays the index
+ * was built from.
+ * <p>
+ * The index keeps the starts and the ends each in sorted order, which answers overlap
+ * counts with two binary searches. Containment is a two dimensional question (start on one
+ * side, end on the other), which is answered by a merge sort tree: the ends, in start
+ * order, sorted within blocks of every power of two size. That takes n log n ints, and
+ * answers a query in O(log^2 n).
+ */
+public class IntervalIndex {
+  private final int size;
+
+  // Starts, and separately the ends, in sorted order
+  private final int[] starts;
+  private final int[] ends;
+
+  // Interval ids in start order, and their ends in the same order
+  private final int[] ids;
+  private final int[] endsByStart;
+
+  // levels[k] is endsByStart sorted within each aligned block of 2^k entries
+  private final int[][] levels;
+
+  // Max of endsByStart over each node of a binary tree (heap layout, leaves at leafBase)
+  private final int[] maxEnd;
+  private final int leafBase;
+
+  public IntervalIndex(int[] intervalStarts, int[] intervalEnds, int size) {
+    this.size = size;
+
+    for (int i = 0; i < size; i++) {
+      if (intervalStarts[i] > intervalEnds[i])
+        throw new IllegalArgumentException("Interval " + i + " ends before it starts: " + intervalStarts[i] + "-" + intervalEnds[i]);
+    }
+
+    // sort ids by start, packing the start with the id so a primitive sort does it
+    var packed = new long[size];
+    for (int i = 0; i < size; i++)
+      packed[i] = ((long) intervalStarts[i] << 32) | i;
+
+    Arrays.sort(packed);
+
+    starts = new int[size];
+    ids = new int[size];
+    endsByStart = new int[size];
+
+    for (int i = 0; i < size; i++) {
+      ids[i] = (int) packed[i];
+      starts[i] = intervalStarts[ids[i]];
+      endsByStart[i] = intervalEnds[ids[i]];
+    }
+
+    ends = Arrays.copyOf(intervalEnds, size);
+    Arrays.sort(ends);
+
+    levels = buildLevels(endsByStart);
+
+    leafBase = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+    maxEnd = new int[2 * leafBase];
+    Arrays.fill(maxEnd, Integer.MIN_VALUE);
+    System.arraycopy(endsByStart, 0, maxEnd, leafBase, size);
+
+    for (int node = leafBase - 1; node > 0; node--)
+      maxEnd[node] = Math.max(maxEnd[2 * node], maxEnd[2 * node + 1]);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  // Number of intervals sharing at least one point with [from, to]. O(log n)
+  public int countOverlapping(int from, int to) {
+    // everything, except those entirely after the query and those entirely before it
+    var after = size - upperBound(starts, size, to);
+    var before = lowerBound(ends, size, from);
+
+    return size - after - before;
+  }
+
+  // Number of intervals that contain all of [from, to]. O(log^2 n)
+  public int countContaining(int from, int to) {
+    return countEndsAtLeast(0, upperBound(starts, size, from), to);
+  }
+
+  // Number of intervals that lie entirely within [from, to]. O(log^2 n)
+  public int countContainedIn(int from, int to) {
+    var first = lowerBound(starts, size, from);
+    var last = upperBound(starts, size, to);
+
+    if (first >= last)
+      return 0;
+
+    if (to == Integer.MAX_VALUE)
+      return last - first;
+
+    return (last - first) - countEndsAtLeast(first, last, to + 1);
+  }
+
+  /**
+   * Calls action with the id of each interval overlapping [from, to], in start order. Only
+   * subtrees holding a match are visited, so this is O(log n) per interval reported.
+   */
+  public void forEachOverlapping(int from, int to, IntConsumer action) {
+    var last = upperBound(starts, size, to);
+
+    if (last > 0)
+      forEachEndAtLeast(1, 0, leafBase, last, from, action);
+  }
+
+  /**
+   * Number of pairs of intervals that overlap each other, by a sweep over the starts in
+   * order: each interval overlaps every interval that started before it and has not yet
+   * ended. O(n) on top of the sorting done when the index was built.
+   */
+  public long countOverlappingPairs() {
+    long pairs = 0;
+    int ended = 0;
+
+    for (int i = 0; i < size; i++) {
+      // intervals ending before this one starts can't overlap it, or anything after it
+      while (ended < size && ends[ended] < starts[i])
+        ended++;
+
+      pairs += i - ended;
+    }
+
+    return pairs;
+  }
+
+  // Number of entries in endsByStart[first, last) that are >= value
+  private int countEndsAtLeast(int first, int last, int value) {
+    var count = 0;
+    var i = first;
+
+    while (i < last) {
+      // the largest aligned block starting at i that fits in the range
+      var level = i == 0 ? levels.length - 1 : Math.min(Integer.numberOfTrailingZeros(i), levels.length - 1);
+      while (i + (1 << level) > last)
+        level--;
+
+      var blockEnd = i + (1 << level);
+      count += blockEnd - lowerBound(levels[level], i, blockEnd, value);
+      i = blockEnd;
+    }
+
+    return count;
+  }
+
+  private void forEachEndAtLeast(int node, int nodeStart, int nodeSize, int last, int value, IntConsumer action) {
+    if (nodeStart >= last || maxEnd[node] < value)
+      return;
+
+    if (nodeSize == 1) {
+      action.accept(ids[nodeStart]);
+      return;
+    }
+
+    var half = nodeSize / 2;
+    forEachEndAtLeast(2 * node, nodeStart, half, last, value, action);
+    forEachEndAtLeast(2 * node + 1, nodeStart + half, half, last, value, action);
+  }
+
+  private static int[][] buildLevels(int[] values) {
+    var count = 1;
+    while ((1 << (count - 1)) < values.length)
+      count++;
+
+    var levels = new int[count][];
+    levels[0] = values;
+
+    for (int level = 1; level < count; level++) {
+      var previous = levels[level - 1];
+      var current = new int[values.length];
+      var half = 1 << (level - 1);
+
+      // merge each pair of sorted blocks from the level below
+      for (int start = 0; start < values.length; start += 2 * half) {
+        var middle = Math.min(start + half, values.length);
+        var end = Math.min(start + 2 * half, values.length);
+        int a = start, b = middle, out = start;
+
+        while (a < middle && b < end)
+          current[out++] = previous[a] <= previous[b] ? previous[a++] : previous[b++];
+
+        while (a < middle) current[out++] = previous[a++];
+        while (b < end) current[out++] = previous[b++];
+      }
+
+      levels[level] = current;
+    }
+
+    return levels;
+  }
+
+  // First index in sorted[0, length) with a value >= key
+  private static int lowerBound(int[] sorted, int length, int key) {
+    return lowerBound(sorted, 0, length, key);
+  }
+
+  private static int lowerBound(int[] sorted, int from, int to, int key) {
+    while (from < to) {
+      var middle = (from + to) >>> 1;
+
+      if (sorted[middle] < key)
+        from = middle + 1;
+      else
+        to = middle;
+    }
+
+    return from;
+  }
+
+  // First index in sorted[0, length) with a value > key
+  private static int upperBound(int[] sorted, int length, int key) {
+    return key == Integer.MAX_VALUE ? length : lowerBound(sorted, 0, length, key + 1);
+  }
+}
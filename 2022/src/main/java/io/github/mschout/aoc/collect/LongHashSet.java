@@ -0,0 +1,136 @@
+package io.github.mschout.aoc.collect;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * A set of primitive longs, using open addressing with linear probing in a single long
+ * array. Each entry costs 8 to 16 bytes, compared to the 50 or more of a boxed point in a
+ * HashSet.
+ * <p>
+ * Zero marks an empty slot in the table, so whether the set holds zero itself is tracked
+ * separately.
+ */
+public class LongHashSet {
+  private static final int MIN_CAPACITY = 16;
+
+  private long[] table;
+  private int mask;
+  private int size;
+  private boolean containsZero;
+
+  public LongHashSet() {
+    this(MIN_CAPACITY);
+  }
+
+  public LongHashSet(int expectedSize) {
+    allocate(tableSize(expectedSize));
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  // Returns true if value was not already in the set.
+  public boolean add(long value) {
+    if (value == 0) {
+      if (containsZero)
+        return false;
+
+      containsZero = true;
+      size++;
+
+      return true;
+    }
+
+    var slot = slot(value);
+
+    while (table[slot] != 0) {
+      if (table[slot] == value)
+        return false;
+
+      slot = (slot + 1) & mask;
+    }
+
+    table[slot] = value;
+
+    // keep the table at most half full
+    if (++size > (mask + 1) / 2)
+      rehash(table.length * 2);
+
+    return true;
+  }
+
+  public boolean contains(long value) {
+    if (value == 0)
+      return containsZero;
+
+    var slot = slot(value);
+
+    while (table[slot] != 0) {
+      if (table[slot] == value)
+        return true;
+
+      slot = (slot + 1) & mask;
+    }
+
+    return false;
+  }
+
+  public void clear() {
+    Arrays.fill(table, 0);
+    containsZero = false;
+    size = 0;
+  }
+
+  // Call action with each value in the set, in no particular order.
+  public void forEach(LongConsumer action) {
+    if (containsZero)
+      action.accept(0);
+
+    for (var value : table) {
+      if (value != 0)
+        action.accept(value);
+    }
+  }
+
+  private int slot(long value) {
+    // Spread the bits, packed coordinates differ mostly in their low bits of each half
+    var hash = value * 0x9E3779B97F4A7C15L;
+
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  private void rehash(int capacity) {
+    var old = table;
+    allocate(capacity);
+
+    for (var value : old) {
+      if (value == 0) continue;
+
+      var slot = slot(value);
+      while (table[slot] != 0)
+        slot = (slot + 1) & mask;
+
+      table[slot] = value;
+    }
+  }
+
+  private void allocate(int capacity) {
+    table = new long[capacity];
+    mask = capacity - 1;
+  }
+
+  private static int tableSize(int expectedSize) {
+    var capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize * 2) - 1) << 1;
+
+    if (capacity <= 0)
+      throw new IllegalArgumentException("Set too large: " + expectedSize);
+
+    return capacity;
+  }
+}
@@ -0,0 +1,132 @@
+package io.github.mschout.aoc.collect;
+
+import java.util.Arrays;
+
+/**
+ * A map from primitive long keys to int values, using open addressing with linear probing
+ * in parallel key and value arrays. Like {@link LongHashSet}, zero marks an empty slot, so
+ * the value for the key zero is kept separately.
+ */
+public class LongIntHashMap {
+  private static final int MIN_CAPACITY = 16;
+
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int size;
+
+  private boolean containsZero;
+  private int zeroValue;
+
+  public LongIntHashMap() {
+    this(MIN_CAPACITY);
+  }
+
+  public LongIntHashMap(int expectedSize) {
+    allocate(tableSize(expectedSize));
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean containsKey(long key) {
+    if (key == 0)
+      return containsZero;
+
+    return keys[find(key)] != 0;
+  }
+
+  public int getOrDefault(long key, int defaultValue) {
+    if (key == 0)
+      return containsZero ? zeroValue : defaultValue;
+
+    var slot = find(key);
+
+    return keys[slot] != 0 ? values[slot] : defaultValue;
+  }
+
+  public void put(long key, int value) {
+    if (key == 0) {
+      if (!containsZero) {
+        containsZero = true;
+        size++;
+      }
+
+      zeroValue = value;
+      return;
+    }
+
+    var slot = find(key);
+
+    if (keys[slot] != 0) {
+      values[slot] = value;
+      return;
+    }
+
+    keys[slot] = key;
+    values[slot] = value;
+
+    // keep the table at most half full
+    if (++size > (mask + 1) / 2)
+      rehash(keys.length * 2);
+  }
+
+  public void clear() {
+    Arrays.fill(keys, 0);
+    containsZero = false;
+    size = 0;
+  }
+
+  // The slot holding key, or the empty slot where it would go
+  private int find(long key) {
+    var slot = slot(key);
+
+    while (keys[slot] != 0 && keys[slot] != key)
+      slot = (slot + 1) & mask;
+
+    return slot;
+  }
+
+  private int slot(long key) {
+    var hash = key * 0x9E3779B97F4A7C15L;
+
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  private void rehash(int capacity) {
+    var oldKeys = keys;
+    var oldValues = values;
+    allocate(capacity);
+
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] == 0) continue;
+
+      var slot = slot(oldKeys[i]);
+      while (keys[slot] != 0)
+        slot = (slot + 1) & mask;
+
+      keys[slot] = oldKeys[i];
+      values[slot] = oldValues[i];
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    mask = capacity - 1;
+  }
+
+  private static int tableSize(int expectedSize) {
+    var capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize * 2) - 1) << 1;
+
+    if (capacity <= 0)
+      throw new IllegalArgumentException("Map too large: " + expectedSize);
+
+    return capacity;
+  }
+}
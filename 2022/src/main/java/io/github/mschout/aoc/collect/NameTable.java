@@ -0,0 +1,115 @@
+package io.github.mschout.aoc.collect;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Interns names, given as UTF-8 bytes, numbering each distinct name from zero in the order
+ * first seen. The names are stored back to back in one byte array, so a name repeated
+ * millions of times costs its bytes once, and no String is made until one is asked for.
+ */
+public class NameTable {
+  private static final int MIN_CAPACITY = 16;
+
+  // Name i is bytes[offsets[i], offsets[i + 1])
+  private byte[] bytes = new byte[1024];
+  private int[] offsets = new int[MIN_CAPACITY + 1];
+  private int count;
+
+  // Name number + 1 in each slot, 0 for an empty slot
+  private int[] slots;
+  private int mask;
+
+  public NameTable() {
+    allocate(MIN_CAPACITY * 2);
+  }
+
+  public int size() {
+    return count;
+  }
+
+  // The number of name[0, length), adding it if it is new
+  public int intern(byte[] name, int length) {
+    var hash = hash(name, 0, length);
+    var slot = find(name, length, hash);
+
+    if (slots[slot] != 0)
+      return slots[slot] - 1;
+
+    if (offsets[count] + length > bytes.length)
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, offsets[count] + length));
+
+    if (count + 2 > offsets.length)
+      offsets = Arrays.copyOf(offsets, offsets.length * 2);
+
+    System.arraycopy(name, 0, bytes, offsets[count], length);
+    offsets[count + 1] = offsets[count] + length;
+    slots[slot] = ++count;
+
+    // keep the table at most half full
+    if (count > (mask + 1) / 2)
+      rehash(slots.length * 2);
+
+    return count - 1;
+  }
+
+  // The number of name, or -1 if it has not been interned
+  public int find(String name) {
+    var utf8 = name.getBytes(StandardCharsets.UTF_8);
+
+    return slots[find(utf8, utf8.length, hash(utf8, 0, utf8.length))] - 1;
+  }
+
+  public String name(int number) {
+    if (number < 0 || number >= count)
+      throw new IndexOutOfBoundsException("No name " + number);
+
+    return new String(bytes, offsets[number], offsets[number + 1] - offsets[number], StandardCharsets.UTF_8);
+  }
+
+  // The slot holding name, or the empty slot where it would go
+  private int find(byte[] name, int length, int hash) {
+    var slot = hash & mask;
+
+    while (slots[slot] != 0 && !matches(slots[slot] - 1, name, length))
+      slot = (slot + 1) & mask;
+
+    return slot;
+  }
+
+  private boolean matches(int number, byte[] name, int length) {
+    var start = offsets[number];
+
+    return offsets[number + 1] - start == length
+      && Arrays.equals(bytes, start, start + length, name, 0, length);
+  }
+
+  private static int hash(byte[] name, int from, int to) {
+    var hash = 0;
+
+    for (int i = from; i < to; i++)
+      hash = 31 * hash + name[i];
+
+    // spread the bits, only the low ones pick the slot
+    hash *= 0x9E3779B9;
+
+    return hash ^ (hash >>> 16);
+  }
+
+  private void rehash(int capacity) {
+    allocate(capacity);
+
+    for (int number = 0; number < count; number++) {
+      var slot = hash(bytes, offsets[number], offsets[number + 1]) & mask;
+      while (slots[slot] != 0)
+        slot = (slot + 1) & mask;
+
+      slots[slot] = number + 1;
+    }
+  }
+
+  private void allocate(int capacity) {
+    slots = new int[capacity];
+    mask = capacity - 1;
+  }
+}
@@ -0,0 +1,17 @@
+package io.github.mschout.aoc.generator;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+// Rounds of rock paper scissors: "A Y"
+public class Day02Generator implements InputGenerator {
+  @Override
+  public void generate(Random random, int scale, PrintWriter out) {
+    for (int i = 0; i < 2_500 * scale; i++) {
+      out.append((char) ('A' + random.nextInt(3)))
+        .append(' ')
+        .append((char) ('X' + random.nextInt(3)))
+        .append('\n');
+    }
+  }
+}
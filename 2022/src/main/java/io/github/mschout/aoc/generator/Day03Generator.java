@@ -0,0 +1,63 @@
+package io.github.mschout.aoc.generator;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Rucksacks in groups of three. The 52 item types are shuffled for each group: the first
+ * is the group's badge, and each rucksack gets 17 of the rest for itself, so the badge is
+ * the only item all three carry. Each rucksack puts one of its items in both compartments
+ * and splits the others between them.
+ */
+public class Day03Generator implements InputGenerator {
+  private static final String ITEMS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+  @Override
+  public void generate(Random random, int scale, PrintWriter out) {
+    var items = new ArrayList<Character>();
+    for (var item : ITEMS.toCharArray())
+      items.add(item);
+
+    for (int group = 0; group < 100 * scale; group++) {
+      Collections.shuffle(items, random);
+
+      var badge = items.get(0);
+
+      for (int elf = 0; elf < 3; elf++) {
+        var carried = new ArrayList<>(items.subList(1 + 17 * elf, 18 + 17 * elf));
+        carried.add(badge);
+        Collections.shuffle(carried, random);
+
+        var duplicated = carried.get(0);
+        var split = 2 + random.nextInt(carried.size() - 3);
+        var compartmentSize = 8 + random.nextInt(12);
+
+        out.append(compartment(random, duplicated, carried.subList(1, split), badge, compartmentSize));
+        out.append(compartment(random, duplicated, carried.subList(split, carried.size()), badge, compartmentSize));
+        out.append('\n');
+      }
+    }
+  }
+
+  // The duplicated item, the badge if it is one of these items, and then random items.
+  private static String compartment(Random random, char duplicated, List<Character> items, char badge, int size) {
+    var compartment = new ArrayList<Character>(size);
+    compartment.add(duplicated);
+
+    if (items.contains(badge))
+      compartment.add(badge);
+
+    while (compartment.size() < size)
+      compartment.add(items.get(random.nextInt(items.size())));
+
+    Collections.shuffle(compartment, random);
+
+    var result = new StringBuilder(size);
+    compartment.forEach(result::append);
+
+    return result.toString();
+  }
+}
@@ -0,0 +1,26 @@
+package io.github.mschout.aoc.generator;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+// Pairs of section assignments: "2-4,6-8"
+public class Day04Generator implements InputGenerator {
+  @Override
+  public void generate(Random random, int scale, PrintWriter out) {
+    for (int i = 0; i < 1_000 * scale; i++) {
+      appendRange(random, out);
+      out.append(',');
+      appendRange(random, out);
+      out.append('\n');
+    }
+  }
+
+  private static void appendRange(Random random, PrintWriter out) {
+    var start = 1 + random.nextInt(99);
+    var end = start + random.nextInt(100 - start);
+
+    out.print(start);
+    out.append('-');
+    out.print(end);
+  }
+}
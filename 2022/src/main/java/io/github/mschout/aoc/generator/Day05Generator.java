@@ -0,0 +1,58 @@
+package io.github.mschout.aoc.generator;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * Nine stacks of crates and a list of moves. Moves never take the last crate off a stack,
+ * so every stack still has a crate on top at the end.
+ */
+public class Day05Generator implements InputGenerator {
+  private static final int STACKS = 9;
+
+  @Override
+  public void generate(Random random, int scale, PrintWriter out) {
+    var heights = new int[STACKS];
+    var maxHeight = 0;
+
+    for (int i = 0; i < STACKS; i++) {
+      // at least one stack must be able to give up a crate
+      heights[i] = (i == 0 ? 2 : 1) + random.nextInt(7);
+      maxHeight = Math.max(maxHeight, heights[i]);
+    }
+
+    for (int row = maxHeight - 1; row >= 0; row--) {
+      for (int stack = 0; stack < STACKS; stack++) {
+        if (stack > 0)
+          out.append(' ');
+
+        if (heights[stack] > row)
+          out.append('[').append((char) ('A' + random.nextInt(26))).append(']');
+        else
+          out.append("   ");
+      }
+
+      out.append('\n');
+    }
+
+    for (int stack = 0; stack < STACKS; stack++)
+      out.append(stack > 0 ? "   " : " ").print(stack + 1);
+
+    out.append(" \n\n");
+
+    for (int i = 0; i < 500 * scale; i++) {
+      int from;
+      do {
+        from = random.nextInt(STACKS);
+      } while (heights[from] < 2);
+
+      var to = (from + 1 + random.nextInt(STACKS - 1)) % STACKS;
+      var count = 1 + random.nextInt(Math.min(heights[from] - 1, 20));
+
+      heights[from] -= count;
+      heights[to] += count;
+
+      out.printf("move %d from %d to %d\n", count, from + 1, to + 1);
+    }
+  }
+}
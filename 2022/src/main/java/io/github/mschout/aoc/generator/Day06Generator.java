@@ -0,0 +1,19 @@
+package io.github.mschout.aoc.generator;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * A datastream that only uses three letters, so no marker can be found, until it ends with
+ * fourteen different letters. Both markers are at the very end, so the whole stream has to
+ * be searched.
+ */
+public class Day06Generator implements InputGenerator {
+  @Override
+  public void generate(Random random, int scale, PrintWriter out) {
+    for (int i = 0; i < 4_096 * scale; i++)
+      out.append((char) ('a' + random.nextInt(3)));
+
+    out.append("defghijklmnopq\n");
+  }
+}
@@ -0,0 +1,86 @@
+package io.github.mschout.aoc.generator;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Terminal output from walking a directory tree. Most new directories are created inside
+ * the previous one, so the tree gets deep as well as wide. File sizes are spread so the
+ * whole disk uses about {@value #USED_SPACE} bytes, which leaves part two something to
+ * delete.
+ */
+public class Day07Generator implements InputGenerator {
+  private static final long USED_SPACE = 50_000_000;
+  private static final int MAX_DEPTH = 1_000;
+
+  private static class Directory {
+    private final String name;
+    private final int depth;
+    private final List<Directory> directories = new ArrayList<>();
+    private final List<Double> fileWeights = new ArrayList<>();
+
+    Directory(String name, int depth) {
+      this.name = name;
+      this.depth = depth;
+    }
+  }
+
+  @Override
+  public void generate(Random random, int scale, PrintWriter out) {
+    var root = new Directory("/", 0);
+    var all = new ArrayList<Directory>(List.of(root));
+    var totalWeight = addFiles(random, root);
+
+    for (int i = 1; i < 200 * scale; i++) {
+      var last = all.get(all.size() - 1);
+
+      var parent = random.nextInt(4) > 0 && last.depth < MAX_DEPTH
+        ? last
+        : all.get(random.nextInt(all.size()));
+
+      var directory = new Directory("d" + i, parent.depth + 1);
+      parent.directories.add(directory);
+      all.add(directory);
+
+      totalWeight += addFiles(random, directory);
+    }
+
+    out.append("$ cd /\n");
+    write(root, USED_SPACE / totalWeight, out);
+  }
+
+  private static double addFiles(Random random, Directory directory) {
+    var weight = 0.0;
+    var files = 1 + random.nextInt(4);
+
+    for (int i = 0; i < files; i++) {
+      var fileWeight = random.nextDouble();
+
+      directory.fileWeights.add(fileWeight);
+      weight += fileWeight;
+    }
+
+    return weight;
+  }
+
+  private static void write(Directory directory, double bytesPerWeight, PrintWriter out) {
+    out.append("$ ls\n");
+
+    for (var subdirectory : directory.directories)
+      out.append("dir ").append(subdirectory.name).append('\n');
+
+    for (int i = 0; i < directory.fileWeights.size(); i++) {
+      out.print(Math.max(1, Math.round(directory.fileWeights.get(i) * bytesPerWeight)));
+      out.append(" f").print(i);
+      out.append(".txt\n");
+    }
+
+    for (var subdirectory : directory.directories) {
+      out.append("$ cd ").append(subdirectory.name).append('\n');
+      write(subdirectory, bytesPerWeight, out);
+      out.append("$ cd ..\n");
+    }
+  }
+}
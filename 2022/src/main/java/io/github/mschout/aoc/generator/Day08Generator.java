@@ -0,0 +1,19 @@
+package io.github.mschout.aoc.generator;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+// A square grid of tree heights, 99 trees on a side at scale 1
+public class Day08Generator implements InputGenerator {
+  @Override
+  public void generate(Random random, int scale, PrintWriter out) {
+    var size = 99 * scale;
+
+    for (int y = 0; y < size; y++) {
+      for (int x = 0; x < size; x++)
+        out.append((char) ('0' + random.nextInt(10)));
+
+      out.append('\n');
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package io.github.mschout.aoc.generator;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+// Head movements: "R 4"
+public class Day09Generator implements InputGenerator {
+  private static final String DIRECTIONS = "URDL";
+
+  @Override
+  public void generate(Random random, int scale, PrintWriter out) {
+    for (int i = 0; i < 2_000 * scale; i++) {
+      out.append(DIRECTIONS.charAt(random.nextInt(4))).append(' ');
+      out.print(1 + random.nextInt(20));
+      out.append('\n');
+    }
+  }
+}
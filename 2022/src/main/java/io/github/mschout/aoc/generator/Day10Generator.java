@@ -0,0 +1,33 @@
+package io.github.mschout.aoc.generator;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * A CPU program of noop and addx instructions. The register is kept on the screen (0-39)
+ * so the sprite is visible, and the program runs for more than the 240 cycles needed to
+ * draw the whole screen.
+ */
+public class Day10Generator implements InputGenerator {
+  @Override
+  public void generate(Random random, int scale, PrintWriter out) {
+    var register = 1;
+
+    for (int i = 0; i < 200 * scale; i++) {
+      if (random.nextBoolean()) {
+        out.append("noop\n");
+        continue;
+      }
+
+      var value = random.nextInt(11) - 5;
+
+      if (register + value < 0 || register + value > 39)
+        value = -value;
+
+      register += value;
+
+      out.append("addx ").print(value);
+      out.append('\n');
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package io.github.mschout.aoc.generator;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Eight monkeys, each testing with a different prime so part two can use their product.
+ * Multipliers are kept to 2 and 3 (and there is no "old * old"), so part one's worry
+ * levels, which are divided by 3 after every inspection, can never overflow.
+ */
+public class Day11Generator implements InputGenerator {
+  private static final List<Integer> PRIMES = Arrays.asList(2, 3, 5, 7, 11, 13, 17, 19);
+
+  @Override
+  public void generate(Random random, int scale, PrintWriter out) {
+    var divisors = new ArrayList<>(PRIMES);
+    Collections.shuffle(divisors, random);
+
+    for (int monkey = 0; monkey < divisors.size(); monkey++) {
+      if (monkey > 0)
+        out.append('\n');
+
+      out.printf("Monkey %d:\n", monkey);
+
+      out.append("  Starting items: ");
+      for (int item = 0; item < 3 * scale; item++) {
+        if (item > 0)
+          out.append(", ");
+
+        out.print(50 + random.nextInt(50));
+      }
+      out.append('\n');
+
+      if (random.nextInt(3) == 0)
+        out.printf("  Operation: new = old * %d\n", 2 + random.nextInt(2));
+      else
+        out.printf("  Operation: new = old + %d\n", 1 + random.nextInt(8));
+
+      out.printf("  Test: divisible by %d\n", divisors.get(monkey));
+      out.printf("    If true: throw to monkey %d\n", otherMonkey(random, monkey, divisors.size()));
+      out.printf("    If false: throw to monkey %d\n", otherMonkey(random, monkey, divisors.size()));
+    }
+  }
+
+  private static int otherMonkey(Random random, int monkey, int monkeys) {
+    return (monkey + 1 + random.nextInt(monkeys - 1)) % monkeys;
+  }
+}
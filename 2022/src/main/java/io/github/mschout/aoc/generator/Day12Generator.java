@@ -0,0 +1,35 @@
+package io.github.mschout.aoc.generator;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * A height map that rises from 'a' on the left to 'z' on the right, never by more than
+ * one step between columns. S and E are at either end of the middle row, which has no
+ * noise, so there is always a path. The other rows are randomly rougher.
+ */
+public class Day12Generator implements InputGenerator {
+  @Override
+  public void generate(Random random, int scale, PrintWriter out) {
+    var rows = 41 * scale;
+    var columns = 160 * scale;
+    var middle = rows / 2;
+
+    for (int row = 0; row < rows; row++) {
+      for (int column = 0; column < columns; column++) {
+        var height = column * 25 / (columns - 1);
+
+        if (row == middle && column == 0)
+          out.append('S');
+        else if (row == middle && column == columns - 1)
+          out.append('E');
+        else if (row == middle)
+          out.append((char) ('a' + height));
+        else
+          out.append((char) ('a' + Math.max(0, Math.min(25, height + random.nextInt(5) - 2))));
+      }
+
+      out.append('\n');
+    }
+  }
+}
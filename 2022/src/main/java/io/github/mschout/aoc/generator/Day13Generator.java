@@ -0,0 +1,40 @@
+package io.github.mschout.aoc.generator;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+// Pairs of packets, nested lists of integers such as [1,[2,[3]],4]
+public class Day13Generator implements InputGenerator {
+  private static final int MAX_DEPTH = 4;
+
+  @Override
+  public void generate(Random random, int scale, PrintWriter out) {
+    for (int pair = 0; pair < 150 * scale; pair++) {
+      if (pair > 0)
+        out.append('\n');
+
+      appendList(random, 0, out);
+      out.append('\n');
+      appendList(random, 0, out);
+      out.append('\n');
+    }
+  }
+
+  private static void appendList(Random random, int depth, PrintWriter out) {
+    out.append('[');
+
+    var size = random.nextInt(5);
+
+    for (int i = 0; i < size; i++) {
+      if (i > 0)
+        out.append(',');
+
+      if (depth < MAX_DEPTH && random.nextInt(5) < 2)
+        appendList(random, depth + 1, out);
+      else
+        out.print(random.nextInt(11));
+    }
+
+    out.append(']');
+  }
+}
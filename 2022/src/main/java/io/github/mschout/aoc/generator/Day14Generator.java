@@ -0,0 +1,40 @@
+package io.github.mschout.aoc.generator;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * Rock paths of alternating horizontal and vertical segments: "498,4 -> 498,6 -> 496,6".
+ * Rocks are kept within reach of the sand pile of part two, which spreads out below the
+ * sand source at 500,0.
+ */
+public class Day14Generator implements InputGenerator {
+  @Override
+  public void generate(Random random, int scale, PrintWriter out) {
+    var maxY = 160 * scale;
+
+    for (int path = 0; path < 150 * scale; path++) {
+      var y = 10 + random.nextInt(maxY - 9);
+      var x = 500 - y / 2 + random.nextInt(y + 1);
+
+      out.print(x);
+      out.append(',').print(y);
+
+      var segments = 1 + random.nextInt(4);
+
+      for (int segment = 0; segment < segments; segment++) {
+        var length = (1 + random.nextInt(10)) * (random.nextBoolean() ? 1 : -1);
+
+        if (segment % 2 == 0)
+          x = Math.max(500 - y / 2, Math.min(500 + y / 2, x + length));
+        else
+          y = Math.max(10, Math.min(maxY, y + length));
+
+        out.append(" -> ").print(x);
+        out.append(',').print(y);
+      }
+
+      out.append('\n');
+    }
+  }
+}
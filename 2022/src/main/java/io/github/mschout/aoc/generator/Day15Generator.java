@@ -0,0 +1,53 @@
+package io.github.mschout.aoc.generator;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import static java.lang.Math.abs;
+
+/**
+ * Sensors with exactly one uncovered point in the 0 - 4,000,000 square, the distress
+ * beacon D.
+ * <p>
+ * A sensor in each corner of the square reaches to one short of D. The only point at least
+ * as far as D from all four corners is D itself, so together they cover everything else.
+ * Their beacons are placed outside the square. All the other sensors are placed randomly,
+ * with a beacon closer than D.
+ */
+public class Day15Generator implements InputGenerator {
+  private static final int SIZE = 4_000_000;
+
+  @Override
+  public void generate(Random random, int scale, PrintWriter out) {
+    var distressX = 1 + random.nextInt(SIZE - 1);
+    var distressY = 1 + random.nextInt(SIZE - 1);
+
+    for (var cornerX : new int[] { 0, SIZE }) {
+      for (var cornerY : new int[] { 0, SIZE }) {
+        var distance = abs(cornerX - distressX) + abs(cornerY - distressY) - 1;
+        var beaconX = cornerX == 0 ? -distance : SIZE + distance;
+
+        appendSensor(cornerX, cornerY, beaconX, cornerY, out);
+      }
+    }
+
+    for (int i = 0; i < 20 * scale; i++) {
+      var x = random.nextInt(SIZE + 1);
+      var y = random.nextInt(SIZE + 1);
+      var distance = abs(x - distressX) + abs(y - distressY);
+
+      if (distance < 2)
+        continue;
+
+      var reach = 1 + random.nextInt(distance - 1);
+      var dx = random.nextInt(2 * reach + 1) - reach;
+      var dy = (reach - abs(dx)) * (random.nextBoolean() ? 1 : -1);
+
+      appendSensor(x, y, x + dx, y + dy, out);
+    }
+  }
+
+  private static void appendSensor(long x, long y, long beaconX, long beaconY, PrintWriter out) {
+    out.printf("Sensor at x=%d, y=%d: closest beacon is at x=%d, y=%d\n", x, y, beaconX, beaconY);
+  }
+}
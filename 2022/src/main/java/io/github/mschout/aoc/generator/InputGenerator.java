@@ -0,0 +1,16 @@
+package io.github.mschout.aoc.generator;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * Writes a valid, randomly generated input for one puzzle day.
+ * <p>
+ * At scale 1 the input is about the size of a real puzzle input, and the number of lines
+ * grows in proportion to the scale (for grids the width grows too). The same random seed
+ * always gives the same input.
+ */
+@FunctionalInterface
+public interface InputGenerator {
+  void generate(Random random, int scale, PrintWriter out);
+}
@@ -0,0 +1,74 @@
+package io.github.mschout.aoc.generator;
+
+import lombok.SneakyThrows;
+
+import java.io.BufferedWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Generated inputs, written under {@value #GENERATED_PATH}. An input is only generated the
+ * first time a (year, day, scale, seed) is asked for, later calls reuse the file.
+ */
+public final class InputGenerators {
+  private static final String GENERATED_PATH = "build/generated-input";
+
+  private InputGenerators() {
+  }
+
+  public static Optional<InputGenerator> lookup(int year, int day) {
+    InputGenerator generator = switch (year * 100 + day) {
+      case 202202 -> new Day02Generator();
+      case 202203 -> new Day03Generator();
+      case 202204 -> new Day04Generator();
+      case 202205 -> new Day05Generator();
+      case 202206 -> new Day06Generator();
+      case 202207 -> new Day07Generator();
+      case 202208 -> new Day08Generator();
+      case 202209 -> new Day09Generator();
+      case 202210 -> new Day10Generator();
+      case 202211 -> new Day11Generator();
+      case 202212 -> new Day12Generator();
+      case 202213 -> new Day13Generator();
+      case 202214 -> new Day14Generator();
+      case 202215 -> new Day15Generator();
+      default -> null;
+    };
+
+    return Optional.ofNullable(generator);
+  }
+
+  // Path of the generated input, generating it first if needed.
+  @SneakyThrows
+  public static Path generate(int year, int day, int scale, long seed) {
+    if (scale < 1)
+      throw new IllegalArgumentException("Scale must be at least 1, got " + scale);
+
+    var generator = lookup(year, day)
+      .orElseThrow(() -> new IllegalArgumentException("No input generator for " + year + " day " + day));
+
+    var inputPath = Paths.get(GENERATED_PATH, String.format("%04d/%02d-scale%d-seed%d.txt", year, day, scale, seed));
+
+    if (Files.exists(inputPath))
+      return inputPath;
+
+    Files.createDirectories(inputPath.getParent());
+
+    // Write to a temporary file first, so an interrupted run does not leave a partial input
+    var tempPath = Files.createTempFile(inputPath.getParent(), inputPath.getFileName().toString(), ".tmp");
+
+    try (var out = new PrintWriter(new BufferedWriter(Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8), 1 << 16))) {
+      generator.generate(new Random(seed), scale, out);
+    }
+
+    Files.move(tempPath, inputPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    return inputPath;
+  }
+}
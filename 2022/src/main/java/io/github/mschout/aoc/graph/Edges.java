@@ -0,0 +1,12 @@
+package io.github.mschout.aoc.graph;
+
+// The weighted edges leaving a node, see GraphSearch. Weights must not be negative.
+@FunctionalInterface
+public interface Edges {
+  void forEach(int node, Edge edge);
+
+  @FunctionalInterface
+  interface Edge {
+    void accept(int to, int weight);
+  }
+}
@@ -0,0 +1,323 @@
+package io.github.mschout.aoc.graph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Shortest path searches over a graph whose nodes are the ints 0 to nodes - 1, such as
+ * the indexes of a {@link io.github.mschout.aoc.grid.ByteGrid}.
+ * <p>
+ * The graph itself is never stored: each search is given a {@link Neighbours} or
+ * {@link Edges} function that lists the edges out of a node as they are needed. The search
+ * state (distances, the reached set and the queue) is kept in arrays owned by this object
+ * and reset at the start of every search, so one GraphSearch can be reused for any number
+ * of searches without allocating.
+ * <p>
+ * Every search takes a target node and stops once the target's distance is known, or
+ * searches everything reachable when the target is {@link #NO_TARGET}. Afterwards
+ * {@link #distance(int)} and {@link #reached(int)} describe the nodes the search got to.
+ */
+public class GraphSearch {
+  public static final int NO_TARGET = -1;
+
+  public static final int UNREACHED = -1;
+
+  private final int nodes;
+  private final int[] distances;
+
+  // Nodes with a distance. For the weighted searches the distance is only final once the
+  // node is settled.
+  private final BitSet reached;
+  private final BitSet settled;
+
+  private final IntQueue queue;
+  private final LongMinHeap heap = new LongMinHeap();
+
+  // Given each node's edges in turn. A lambda capturing the node's distance would be a new
+  // object for every node, these are reused and told the distance instead.
+  private final BfsVisitor bfsVisitor = new BfsVisitor();
+  private final ZeroOneVisitor zeroOneVisitor = new ZeroOneVisitor();
+  private final AStarVisitor aStarVisitor = new AStarVisitor();
+
+  public GraphSearch(int nodes) {
+    this.nodes = nodes;
+    this.distances = new int[nodes];
+    this.reached = new BitSet(nodes);
+    this.settled = new BitSet(nodes);
+    this.queue = new IntQueue(Math.min(nodes, 1024));
+  }
+
+  public int nodes() {
+    return nodes;
+  }
+
+  // Distance from the nearest source to node, or UNREACHED.
+  public int distance(int node) {
+    return reached.get(node) ? distances[node] : UNREACHED;
+  }
+
+  public boolean reached(int node) {
+    return reached.get(node);
+  }
+
+  public int reachedCount() {
+    return reached.cardinality();
+  }
+
+  public void forEachReached(IntConsumer action) {
+    reached.stream().forEach(action);
+  }
+
+  /**
+   * Breadth first search, where every edge has length 1.
+   * @return the distance to target, or UNREACHED
+   */
+  public int bfs(int source, int target, Neighbours neighbours) {
+    reset();
+    discover(source, 0);
+
+    return runBfs(target, neighbours);
+  }
+
+  /**
+   * Breadth first search from several sources at once. Each node gets the distance to its
+   * nearest source.
+   * @return the distance to target, or UNREACHED
+   */
+  public int bfs(int[] sources, int target, Neighbours neighbours) {
+    reset();
+
+    for (var source : sources) {
+      if (!reached.get(source))
+        discover(source, 0);
+    }
+
+    return runBfs(target, neighbours);
+  }
+
+  private int runBfs(int target, Neighbours neighbours) {
+    // A node is marked reached when it is queued, so it is only ever queued once.
+    while (!queue.isEmpty() && !isDone(target, reached)) {
+      var node = queue.removeFirst();
+
+      bfsVisitor.distance = distances[node] + 1;
+      neighbours.forEach(node, bfsVisitor);
+    }
+
+    return targetDistance(target, reached);
+  }
+
+  /**
+   * Search a graph where every edge has weight 0 or 1, using a deque: weight 0 edges go on
+   * the front, weight 1 edges on the back.
+   * @return the distance to target, or UNREACHED
+   */
+  public int zeroOneBfs(int source, int target, Edges edges) {
+    reset();
+
+    distances[source] = 0;
+    reached.set(source);
+    queue.addLast(source);
+
+    while (!queue.isEmpty()) {
+      var node = queue.removeFirst();
+
+      // a node can be queued again after its distance improves, only the first one counts
+      if (settled.get(node)) continue;
+      settled.set(node);
+
+      if (node == target) break;
+
+      zeroOneVisitor.distance = distances[node];
+      edges.forEach(node, zeroOneVisitor);
+    }
+
+    return targetDistance(target, settled);
+  }
+
+  /**
+   * Dijkstra's algorithm, for non negative edge weights.
+   * @return the distance to target, or UNREACHED
+   */
+  public int dijkstra(int source, int target, Edges edges) {
+    return aStar(source, target, edges, node -> 0);
+  }
+
+  /**
+   * A* search. The heuristic must never overestimate the remaining distance to target, and
+   * must be consistent (h(a) <= weight(a, b) + h(b)), or the result may not be the shortest
+   * path. With a heuristic of 0 this is Dijkstra's algorithm.
+   * @return the distance to target, or UNREACHED
+   */
+  public int aStar(int source, int target, Edges edges, IntUnaryOperator heuristic) {
+    reset();
+    aStarVisitor.heuristic = heuristic;
+
+    distances[source] = 0;
+    reached.set(source);
+    heap.add(LongMinHeap.entry(heuristic.applyAsInt(source), source));
+
+    while (!heap.isEmpty()) {
+      var node = LongMinHeap.value(heap.removeMin());
+
+      // stale entry for a node that was since reached by a shorter path
+      if (settled.get(node)) continue;
+      settled.set(node);
+
+      if (node == target) break;
+
+      aStarVisitor.distance = distances[node];
+      edges.forEach(node, aStarVisitor);
+    }
+
+    aStarVisitor.heuristic = null;
+
+    return targetDistance(target, settled);
+  }
+
+  private void reset() {
+    reached.clear();
+    settled.clear();
+    queue.clear();
+    heap.clear();
+  }
+
+  private void discover(int node, int distance) {
+    distances[node] = distance;
+    reached.set(node);
+    queue.addLast(node);
+  }
+
+  // Returns true if distance is shorter than the best distance to node so far.
+  private boolean relax(int node, int distance) {
+    if (settled.get(node) || (reached.get(node) && distances[node] <= distance))
+      return false;
+
+    distances[node] = distance;
+    reached.set(node);
+
+    return true;
+  }
+
+  private static boolean isDone(int target, BitSet done) {
+    return target != NO_TARGET && done.get(target);
+  }
+
+  private int targetDistance(int target, BitSet done) {
+    return isDone(target, done) ? distances[target] : UNREACHED;
+  }
+
+  // Discovers the unreached neighbours of a node, distance away from the sources
+  private class BfsVisitor implements IntConsumer {
+    private int distance;
+
+    @Override
+    public void accept(int neighbour) {
+      if (!reached.get(neighbour))
+        discover(neighbour, distance);
+    }
+  }
+
+  // Relaxes the edges of a node at distance, queueing weight 0 edges first
+  private class ZeroOneVisitor implements Edges.Edge {
+    private int distance;
+
+    @Override
+    public void accept(int to, int weight) {
+      if (weight != 0 && weight != 1)
+        throw new IllegalArgumentException("Edge weight must be 0 or 1: " + weight);
+
+      if (relax(to, distance + weight)) {
+        if (weight == 0)
+          queue.addFirst(to);
+        else
+          queue.addLast(to);
+      }
+    }
+  }
+
+  // Relaxes the edges of a node at distance, queueing them by distance plus heuristic
+  private class AStarVisitor implements Edges.Edge {
+    private int distance;
+    private IntUnaryOperator heuristic;
+
+    @Override
+    public void accept(int to, int weight) {
+      if (weight < 0)
+        throw new IllegalArgumentException("Negative edge weight: " + weight);
+
+      var toDistance = distance + weight;
+
+      if (relax(to, toDistance))
+        heap.add(LongMinHeap.entry(toDistance + heuristic.applyAsInt(to), to));
+    }
+  }
+
+  /**
+   * Binary min heap of longs. Entries pack a priority in the high half and a node in the
+   * low half, so they sort by priority and no entry objects are needed.
+   */
+  static class LongMinHeap {
+    private long[] entries = new long[64];
+    private int size = 0;
+
+    static long entry(int priority, int value) {
+      return ((long) priority << 32) | (value & 0xFFFFFFFFL);
+    }
+
+    static int value(long entry) {
+      return (int) entry;
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    void clear() {
+      size = 0;
+    }
+
+    void add(long entry) {
+      if (size == entries.length)
+        entries = Arrays.copyOf(entries, size * 2);
+
+      // sift up
+      var i = size++;
+      while (i > 0) {
+        var parent = (i - 1) / 2;
+        if (entries[parent] <= entry) break;
+
+        entries[i] = entries[parent];
+        i = parent;
+      }
+
+      entries[i] = entry;
+    }
+
+    long removeMin() {
+      var min = entries[0];
+      var last = entries[--size];
+
+      // sift down
+      var i = 0;
+      while (true) {
+        var child = 2 * i + 1;
+        if (child >= size) break;
+
+        if (child + 1 < size && entries[child + 1] < entries[child])
+          child++;
+
+        if (last <= entries[child]) break;
+
+        entries[i] = entries[child];
+        i = child;
+      }
+
+      entries[i] = last;
+
+      return min;
+    }
+  }
+}
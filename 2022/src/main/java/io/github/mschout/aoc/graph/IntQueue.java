@@ -0,0 +1,72 @@
+package io.github.mschout.aoc.graph;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A double ended queue of primitive ints in a ring buffer, which grows as needed. Used by
+ * {@link GraphSearch} so queueing a node never allocates.
+ */
+public class IntQueue {
+  private int[] elements;
+  private int head = 0;
+  private int size = 0;
+
+  public IntQueue() {
+    this(16);
+  }
+
+  public IntQueue(int initialCapacity) {
+    elements = new int[Integer.highestOneBit(Math.max(2, initialCapacity) - 1) << 1];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    head = 0;
+    size = 0;
+  }
+
+  public void addLast(int value) {
+    if (size == elements.length) grow();
+
+    elements[(head + size) & (elements.length - 1)] = value;
+    size++;
+  }
+
+  public void addFirst(int value) {
+    if (size == elements.length) grow();
+
+    head = (head - 1) & (elements.length - 1);
+    elements[head] = value;
+    size++;
+  }
+
+  public int removeFirst() {
+    if (size == 0)
+      throw new NoSuchElementException("Queue is empty");
+
+    var value = elements[head];
+    head = (head + 1) & (elements.length - 1);
+    size--;
+
+    return value;
+  }
+
+  private void grow() {
+    var grown = new int[elements.length * 2];
+
+    // unwrap the ring so it starts at 0 again
+    var firstPart = Math.min(size, elements.length - head);
+    System.arraycopy(elements, head, grown, 0, firstPart);
+    System.arraycopy(elements, 0, grown, firstPart, size - firstPart);
+
+    elements = grown;
+    head = 0;
+  }
+}
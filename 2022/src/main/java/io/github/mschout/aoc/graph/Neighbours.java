@@ -0,0 +1,9 @@
+package io.github.mschout.aoc.graph;
+
+import java.util.function.IntConsumer;
+
+// The nodes one step away from a node in an unweighted graph, see GraphSearch.
+@FunctionalInterface
+public interface Neighbours {
+  void forEach(int node, IntConsumer neighbour);
+}
@@ -0,0 +1,193 @@
+package io.github.mschout.aoc.grid;
+
+import io.github.mschout.aoc.PuzzleInput;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A width x height grid of bytes, stored row by row in one flat array, with a one cell
+ * border of sentinel values all the way around it.
+ * <p>
+ * Cells can be addressed by (x, y), but it is cheaper to work with the flat index: the
+ * neighbours of index i are i - 1, i + 1, i - stride() and i + stride(). Because of the
+ * border, every neighbour of a cell in the grid is inside the array, so they can be read
+ * without any bounds checks. Reading off the edge just gives the border value.
+ */
+public class ByteGrid {
+  private final int width;
+  private final int height;
+  private final int stride;
+  private final byte border;
+  private final byte[] cells;
+
+  public ByteGrid(int width, int height, byte border) {
+    this.width = width;
+    this.height = height;
+    this.stride = width + 2;
+    this.border = border;
+    this.cells = new byte[stride * (height + 2)];
+
+    Arrays.fill(cells, border);
+    fill((byte) 0);
+  }
+
+  // A grid of the bytes of each line of the input. All lines must be the same length.
+  public static ByteGrid parse(PuzzleInput input, byte border) {
+    var lines = new ArrayList<ByteBuffer>();
+
+    input.forEachLine(line -> {
+      if (line.hasRemaining())
+        lines.add(line);
+    });
+
+    if (lines.isEmpty())
+      throw new IllegalArgumentException("Grid input is empty");
+
+    var grid = new ByteGrid(lines.get(0).remaining(), lines.size(), border);
+
+    for (int y = 0; y < lines.size(); y++) {
+      var line = lines.get(y);
+
+      if (line.remaining() != grid.width)
+        throw new IllegalArgumentException("Grid line " + (y + 1) + " is " + line.remaining() + " bytes, expected " + grid.width);
+
+      line.get(0, grid.cells, grid.index(0, y), grid.width);
+    }
+
+    return grid;
+  }
+
+  public int width() {
+    return width;
+  }
+
+  public int height() {
+    return height;
+  }
+
+  // Distance between vertically adjacent indexes
+  public int stride() {
+    return stride;
+  }
+
+  public byte border() {
+    return border;
+  }
+
+  // Size of the index space, border included, for arrays indexed like the grid.
+  public int size() {
+    return cells.length;
+  }
+
+  public int index(int x, int y) {
+    return (y + 1) * stride + x + 1;
+  }
+
+  public int x(int index) {
+    return index % stride - 1;
+  }
+
+  public int y(int index) {
+    return index / stride - 1;
+  }
+
+  public boolean contains(int x, int y) {
+    return x >= 0 && x < width && y >= 0 && y < height;
+  }
+
+  // Index offsets of the up, right, down and left neighbours.
+  public int[] neighbourOffsets() {
+    return new int[] { -stride, 1, stride, -1 };
+  }
+
+  public byte get(int index) {
+    return cells[index];
+  }
+
+  public byte get(int x, int y) {
+    return cells[index(x, y)];
+  }
+
+  public void set(int index, byte value) {
+    cells[index] = value;
+  }
+
+  public void set(int x, int y, byte value) {
+    cells[index(x, y)] = value;
+  }
+
+  // Set every cell in the grid, leaving the border alone.
+  public void fill(byte value) {
+    for (int y = 0; y < height; y++) {
+      var start = index(0, y);
+      Arrays.fill(cells, start, start + width, value);
+    }
+  }
+
+  // Index of the first cell holding value, in row order, or -1.
+  public int indexOf(byte value) {
+    for (int y = 0; y < height; y++) {
+      var start = index(0, y);
+
+      for (int index = start; index < start + width; index++) {
+        if (cells[index] == value)
+          return index;
+      }
+    }
+
+    return -1;
+  }
+
+  // Call action with the index of every cell in the grid, in row order.
+  public void forEachIndex(IntConsumer action) {
+    for (int y = 0; y < height; y++) {
+      var start = index(0, y);
+
+      for (int index = start; index < start + width; index++)
+        action.accept(index);
+    }
+  }
+
+  public Line row(int y) {
+    return new Line(index(0, y), 1, width);
+  }
+
+  public Line column(int x) {
+    return new Line(index(x, 0), stride, height);
+  }
+
+  /**
+   * A row or column of the grid. This is a view, so it sees later changes to the grid.
+   * Position -1 and position length() are the border cells at either end.
+   */
+  public class Line {
+    private final int first;
+    private final int step;
+    private final int length;
+
+    private Line(int first, int step, int length) {
+      this.first = first;
+      this.step = step;
+      this.length = length;
+    }
+
+    public int length() {
+      return length;
+    }
+
+    public int index(int position) {
+      return first + position * step;
+    }
+
+    public byte get(int position) {
+      return cells[first + position * step];
+    }
+
+    public void set(int position, byte value) {
+      cells[first + position * step] = value;
+    }
+  }
+}
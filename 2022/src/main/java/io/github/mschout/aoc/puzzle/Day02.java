@@ -1,63 +1,154 @@
 package io.github.mschout.aoc.puzzle;
 
 import io.github.mschout.aoc.AdventOfCodePuzzle;
+import io.github.mschout.aoc.Puzzle;
+import io.github.mschout.aoc.PuzzleInput;
+import lombok.Getter;
+import lombok.SneakyThrows;
 
-import java.nio.file.Files;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
-import java.util.Map;
-
-import static java.util.Map.entry;
 
 // Part 1 Total Score: 9651
 // Part 2 Total Score: 10560
 
+@Puzzle(year = 2022, day = 2)
 public class Day02 extends AdventOfCodePuzzle {
+  // Inputs smaller than this are not worth splitting up
+  private static final int PARALLEL_THRESHOLD = 1 << 20;
+
   public Day02(Path input) {
     super(input);
   }
 
+  // Scores are indexed by round(): opponent (A, B, C) * 3 + response (X, Y, Z)
   // Rock=1, paper=2, scissors=3
   // Win=6, lose=0, draw=3
-  Map<String, Integer> partOneOutcomes = Map.ofEntries(
-    entry("A X", 1 + 3), // Rock vs Rock DRAW 1 + 3
-    entry("A Y", 2 + 6), // Rock vs Paper WIN 2 + 6
-    entry("A Z", 3 + 0), // Rock vs Scissors LOSE 3 + 0
-    entry("B X", 1 + 0), // Paper vs Rock LOSE 1 + 0
-    entry("B Y", 2 + 3), // Paper vs Paper DRAW 2 + 3
-    entry("B Z", 3 + 6), // Paper vs Scissors WIN 3 + 6
-    entry("C X", 1 + 6), // Scissors vs Rock WIN 1 + 6
-    entry("C Y", 2 + 0), // Scissors vs Paper LOSE 2 + 0
-    entry("C Z", 3 + 3) // Scissors vs Scissors DRAW 3 + 3
-  );
+  private static final int[] PART_ONE_SCORES = {
+    1 + 3, // A X: Rock vs Rock DRAW 1 + 3
+    2 + 6, // A Y: Rock vs Paper WIN 2 + 6
+    3 + 0, // A Z: Rock vs Scissors LOSE 3 + 0
+    1 + 0, // B X: Paper vs Rock LOSE 1 + 0
+    2 + 3, // B Y: Paper vs Paper DRAW 2 + 3
+    3 + 6, // B Z: Paper vs Scissors WIN 3 + 6
+    1 + 6, // C X: Scissors vs Rock WIN 1 + 6
+    2 + 0, // C Y: Scissors vs Paper LOSE 2 + 0
+    3 + 3 // C Z: Scissors vs Scissors DRAW 3 + 3
+  };
 
   // Part Two, X=LOSE, Y=DRAW, Z=WIN
-  Map<String, Integer> partTwoOutcomes = Map.ofEntries(
-    entry("A X", 3 + 0), // Rock lose: chose scissors 3 + 0 = 3
-    entry("A Y", 1 + 3), // Rock draw: choose Rock - 1 + 3 = 4
-    entry("A Z", 2 + 6), // Rock win: choose paper 2 + 6 = 8
-    entry("B X", 1 + 0), // Paper lose choose rock 1 + 0 = 1
-    entry("B Y", 2 + 3), // Paper draw choose paper - 2 + 3 = 5
-    entry("B Z", 3 + 6), // Paper win choose scissors: 3 + 6 = 9
-    entry("C X", 2 + 0), // Scissors lose: choose paper 2 + 0 = 2
-    entry("C Y", 3 + 3), // Scissors draw: choose scissors 3 + 3 = 6
-    entry("C Z", 1 + 6) // Scissors win: choose rock: 1 + 6 = 7
-  );
+  private static final int[] PART_TWO_SCORES = {
+    3 + 0, // A X: Rock lose: chose scissors 3 + 0 = 3
+    1 + 3, // A Y: Rock draw: choose Rock - 1 + 3 = 4
+    2 + 6, // A Z: Rock win: choose paper 2 + 6 = 8
+    1 + 0, // B X: Paper lose choose rock 1 + 0 = 1
+    2 + 3, // B Y: Paper draw choose paper - 2 + 3 = 5
+    3 + 6, // B Z: Paper win choose scissors: 3 + 6 = 9
+    2 + 0, // C X: Scissors lose: choose paper 2 + 0 = 2
+    3 + 3, // C Y: Scissors draw: choose scissors 3 + 3 = 6
+    1 + 6 // C Z: Scissors win: choose rock: 1 + 6 = 7
+  };
+
+  // Both scores are added up in one pass over the input. Large mapped inputs are split at
+  // line boundaries and the pieces scored in parallel.
+  @Getter(lazy = true)
+  private final Scores scores = scoreRounds();
 
   @Override
   public String partOne() throws Exception {
-    var score = Files.lines(inputFile)
-      .map(line -> partOneOutcomes.get(line))
-      .reduce(0, Integer::sum);
-
-    return score.toString();
+    return String.valueOf(getScores().partOne());
   }
 
   @Override
   public String partTwo() throws Exception {
-    var score = Files.lines(inputFile)
-      .map(line -> partTwoOutcomes.get(line))
-      .reduce(0, Integer::sum);
+    return String.valueOf(getScores().partTwo());
+  }
+
+  record Scores(long partOne, long partTwo) {
+    static final Scores ZERO = new Scores(0, 0);
+
+    Scores plus(Scores other) {
+      return new Scores(partOne + other.partOne, partTwo + other.partTwo);
+    }
+  }
+
+  @SneakyThrows
+  private Scores scoreRounds() {
+    // standard input, or a file too large to map, is read through once in constant memory
+    if (!PuzzleInput.isMappable(inputFile))
+      return scoreStream();
+
+    var input = getInput();
+
+    if (input.size() < PARALLEL_THRESHOLD)
+      return score(input.bytes());
+
+    return input.splitLines(Runtime.getRuntime().availableProcessors())
+      .parallelStream()
+      .map(Day02::score)
+      .reduce(Scores.ZERO, Scores::plus);
+  }
+
+  private Scores scoreStream() throws IOException {
+    long partOne = 0;
+    long partTwo = 0;
+
+    try (var input = openTokenizer()) {
+      while (input.nextToken()) {
+        var opponent = input.tokenByte(0);
+
+        if (input.tokenLength() != 1 || !input.nextToken() || input.tokenLength() != 1)
+          throw new IllegalArgumentException("Bad round at opponent " + (char) opponent);
+
+        var round = round(opponent, input.tokenByte(0));
+
+        partOne += PART_ONE_SCORES[round];
+        partTwo += PART_TWO_SCORES[round];
+      }
+    }
+
+    return new Scores(partOne, partTwo);
+  }
+
+  // Score every round in rounds, lines such as "A Y"
+  private static Scores score(ByteBuffer rounds) {
+    long partOne = 0;
+    long partTwo = 0;
+
+    int limit = rounds.limit();
+    int i = rounds.position();
+
+    while (i < limit) {
+      var opponent = rounds.get(i);
+
+      // skip line terminators and blank lines
+      if (opponent == '\n' || opponent == '\r') {
+        i++;
+        continue;
+      }
+
+      if (i + 2 >= limit)
+        throw new IllegalArgumentException("Incomplete round at byte " + i);
+
+      var round = round(opponent, rounds.get(i + 2));
+
+      partOne += PART_ONE_SCORES[round];
+      partTwo += PART_TWO_SCORES[round];
+
+      i += 3;
+    }
+
+    return new Scores(partOne, partTwo);
+  }
+
+  private static int round(byte opponent, byte response) {
+    var a = opponent - 'A';
+    var x = response - 'X';
+
+    if (a < 0 || a > 2 || x < 0 || x > 2)
+      throw new IllegalArgumentException("Bad round: " + (char) opponent + " " + (char) response);
 
-    return score.toString();
+    return a * 3 + x;
   }
 }
@@ -1,15 +1,26 @@
 package io.github.mschout.aoc.puzzle;
 
-import com.google.common.collect.Lists;
+import com.google.common.primitives.Longs;
 import io.github.mschout.aoc.AdventOfCodePuzzle;
+import io.github.mschout.aoc.InputTokenizer;
+import io.github.mschout.aoc.Puzzle;
+import io.github.mschout.aoc.PuzzleInput;
+import lombok.Getter;
+import lombok.SneakyThrows;
 
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Arrays;
+import java.util.stream.IntStream;
 
+@Puzzle(year = 2022, day = 3)
 public class Day03 extends AdventOfCodePuzzle {
-  private final List<Rucksack> rucksacks = new ArrayList<>();
+  // Inputs smaller than this are not worth splitting up
+  private static final int PARALLEL_THRESHOLD = 1 << 20;
+
+  // Both sums are added up from one pass over the input
+  @Getter(lazy = true)
+  private final Priorities priorities = sumPriorities();
 
   public Day03(Path inputFile) {
     super(inputFile);
@@ -17,123 +28,167 @@ public class Day03 extends AdventOfCodePuzzle {
 
   @Override
   public String partOne() throws Exception {
-    try (var lines = Files.lines(inputFile)) {
-      lines.forEach(line -> rucksacks.add(new Rucksack(line)));
-    }
-
-    // Part one
-    var duplicatedSum = rucksacks.stream()
-      .flatMap(s -> s.getDuplicatedItems().stream())
-      .map(this::itemPriority)
-      .reduce(0, Integer::sum);
-
-    return duplicatedSum.toString();
+    return String.valueOf(getPriorities().duplicated());
   }
 
   @Override
   public String partTwo() throws Exception {
-    var groups = Lists.partition(rucksacks, 3);
-
-    var groupSum = groups.stream()
-      .map(this::findCommonItem)
-      .map(this::itemPriority)
-      .reduce(0, Integer::sum);
+    return String.valueOf(getPriorities().groups());
+  }
 
-    return groupSum.toString();
+  record Priorities(long duplicated, long groups) {
   }
 
-  private Character findCommonItem(List<Rucksack> group) {
-    // there is one common item in the gruop. Take possible items from first rucksack in
-    // the group.
-    for (var item : group.get(0).getItems()) {
-      if (allElvesAreCarryingItem(group, item))
-        return item;
+  // Sets of items are kept as a long, with bit n set for the item with priority n.
+  @SneakyThrows
+  private Priorities sumPriorities() {
+    // standard input, or a file too large to map, is read through once in constant memory
+    if (!PuzzleInput.isMappable(inputFile)) {
+      try (var input = openTokenizer()) {
+        return sumPriorities(input);
+      }
     }
 
-    throw new IllegalArgumentException("No common item found within the group");
-  }
+    var input = getInput();
 
-  private boolean allElvesAreCarryingItem(List<Rucksack> rucksacks, Character item) {
-    for (var rs : rucksacks)
-      if (!rs.contains(item)) return false;
+    if (input.size() < PARALLEL_THRESHOLD)
+      return sumPriorities(input.tokenizer());
 
-    return true;
-  }
+    // Large inputs are split up and the pieces parsed in parallel. The rucksacks are put
+    // back in order afterwards, since a group can span two pieces.
+    var chunks = input.splitLines(Runtime.getRuntime().availableProcessors());
 
-  private int itemPriority(Character item) {
-    if (Character.isUpperCase(item))
-      return item - 'A' + 27;
-    else
-      return item - 'a' + 1;
+    var parsed = chunks.parallelStream().map(Rucksacks::parse).toList();
+
+    var duplicated = parsed.stream().mapToLong(Rucksacks::duplicated).sum();
+    var rucksacks = Longs.concat(parsed.stream().map(Rucksacks::items).toArray(long[][]::new));
+
+    // an incomplete group at the end is ignored
+    var badges = IntStream.range(0, rucksacks.length / 3)
+      .parallel()
+      .mapToLong(group -> findCommonItem(rucksacks[3 * group], rucksacks[3 * group + 1], rucksacks[3 * group + 2]))
+      .sum();
+
+    return new Priorities(duplicated, badges);
   }
 
-  static class Rucksack {
-    private final List<Compartment> compartments;
+  // One pass keeping only a running sum, and the rucksacks of the current group
+  private static Priorities sumPriorities(InputTokenizer input) {
+    long duplicated = 0;
+    long badges = 0;
+
+    var group = new long[3];
+    var inGroup = 0;
+
+    while (input.nextToken()) {
+      var length = input.tokenLength();
 
-    Rucksack(String items) {
       // Problem does not say where to split if the number of items is odd
-      if ((items.length() % 2) != 0)
+      if ((length % 2) != 0)
         throw new IllegalArgumentException("Items must be an even number of characters");
 
-      compartments = List.of(
-        new Compartment(items.substring(0, items.length() / 2)),
-        new Compartment(items.substring(items.length() / 2)));
-    }
+      var left = compartment(input, 0, length / 2);
+      var right = compartment(input, length / 2, length);
 
-    public Set<Character> getDuplicatedItems() {
-      if (compartments.isEmpty())
-        return Collections.emptySet();
+      for (var both = left & right; both != 0; both &= both - 1)
+        duplicated += Long.numberOfTrailingZeros(both);
 
-      return compartments.get(0)
-        .getItems()
-        .stream()
-        .filter(this::allCompartmentsContainItem)
-        .collect(Collectors.toSet());
+      group[inGroup++] = left | right;
+
+      if (inGroup == 3) {
+        badges += findCommonItem(group[0], group[1], group[2]);
+        inGroup = 0;
+      }
     }
 
-    public boolean allCompartmentsContainItem(Character item) {
-      if (compartments.isEmpty())
-        return false;
+    return new Priorities(duplicated, badges);
+  }
 
-      for (var compartment : compartments) {
-        if (!compartment.contains(item))
-          return false;
-      }
+  // The items in token bytes [start, end) of the current token
+  private static long compartment(InputTokenizer input, int start, int end) {
+    long items = 0;
 
-      return true;
-    }
+    for (int i = start; i < end; i++)
+      items |= 1L << itemPriority(input.tokenByte(i));
 
-    public boolean contains(Character item) {
-      for (var compartment : compartments) {
-        if (compartment.contains(item))
-          return true;
-      }
+    return items;
+  }
 
-      return false;
-    }
+  // The priority of the item all three rucksacks of a group are carrying
+  private static int findCommonItem(long first, long second, long third) {
+    var common = first & second & third;
 
-    public Set<Character> getItems() {
-      var set = new HashSet<Character>();
+    if (common == 0)
+      throw new IllegalArgumentException("No common item found within the group");
 
-      compartments.forEach(compartment -> set.addAll(compartment.getItems()));
+    return Long.numberOfTrailingZeros(common);
+  }
 
-      return set;
-    }
+  private static int itemPriority(byte item) {
+    if (item >= 'a' && item <= 'z')
+      return item - 'a' + 1;
+    else if (item >= 'A' && item <= 'Z')
+      return item - 'A' + 27;
+
+    throw new IllegalArgumentException("Bad item: " + (char) item);
   }
 
-  static class Compartment {
-    private final List<Character> items;
+  /**
+   * The rucksacks in one piece of the input.
+   * @param duplicated sum of the priorities of items in both compartments of a rucksack
+   * @param items the items in each rucksack
+   */
+  record Rucksacks(long duplicated, long[] items) {
+    static Rucksacks parse(ByteBuffer input) {
+      long duplicated = 0;
+      var items = new long[64];
+      int count = 0;
 
-    Compartment(String items) {
-      this.items = Lists.charactersOf(items);
-    }
+      int limit = input.limit();
+      int lineStart = input.position();
+
+      while (lineStart < limit) {
+        var lineEnd = lineStart;
+        while (lineEnd < limit && input.get(lineEnd) != '\n')
+          lineEnd++;
+
+        var next = lineEnd + 1;
 
-    public boolean contains(Character item) {
-      return items.contains(item);
+        if (lineEnd > lineStart && input.get(lineEnd - 1) == '\r')
+          lineEnd--;
+
+        if (lineEnd > lineStart) {
+          // Problem does not say where to split if the number of items is odd
+          if (((lineEnd - lineStart) % 2) != 0)
+            throw new IllegalArgumentException("Items must be an even number of characters");
+
+          var middle = lineStart + (lineEnd - lineStart) / 2;
+          var left = compartment(input, lineStart, middle);
+          var right = compartment(input, middle, lineEnd);
+
+          // sum the priorities of the items in both compartments
+          for (var both = left & right; both != 0; both &= both - 1)
+            duplicated += Long.numberOfTrailingZeros(both);
+
+          if (count == items.length)
+            items = Arrays.copyOf(items, count * 2);
+
+          items[count++] = left | right;
+        }
+
+        lineStart = next;
+      }
+
+      return new Rucksacks(duplicated, Arrays.copyOf(items, count));
     }
 
-    Set<Character> getItems() {
-      return new HashSet<>(items);
+    private static long compartment(ByteBuffer input, int start, int end) {
+      long items = 0;
+
+      for (int i = start; i < end; i++)
+        items |= 1L << itemPriority(input.get(i));
+
+      return items;
     }
   }
 }
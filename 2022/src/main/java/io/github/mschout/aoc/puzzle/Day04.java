@@ -1,89 +1,120 @@
 package io.github.mschout.aoc.puzzle;
 
 import io.github.mschout.aoc.AdventOfCodePuzzle;
+import io.github.mschout.aoc.Puzzle;
+import io.github.mschout.aoc.collect.IntervalIndex;
 import lombok.Getter;
 import lombok.SneakyThrows;
 
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.List;
+import java.util.function.IntConsumer;
 
 // TODO: refactor, Apache Commons has a Range type that could shorten this a bit.
+@Puzzle(year = 2022, day = 4)
 public class Day04 extends AdventOfCodePuzzle {
   public Day04(Path inputFile) {
     super(inputFile);
   }
 
+  // Both counts are made in one streaming pass, so the input is only read once
   @Getter(lazy = true)
-  private final List<PairAssignment> assignments = buildPairAssignments();
+  private final Counts counts = countAssignments();
 
-  @SneakyThrows
-  private List<PairAssignment> buildPairAssignments() {
-    return Files.lines(inputFile).map(PairAssignment::fromInput).toList();
-  }
+  // Only built when one of the queries across all assignments is used. That parses the
+  // input again, so standard input can't be queried once the parts have read it.
+  @Getter(lazy = true)
+  private final IntervalIndex sectionIndex = buildSectionIndex();
 
   @Override
   public String partOne() {
-    var containedAssignments = getAssignments().stream()
-      .filter(a -> a.get(0).contains(a.get(1)) || a.get(0).isContainedBy(a.get(1)))
-      .toList();
-
-    return "" + containedAssignments.size();
+    return String.valueOf(getCounts().contained());
   }
 
   @Override
   public String partTwo() {
-    var overlappingAssignments = getAssignments().stream()
-      .filter(a -> (a.get(0).overlaps(a.get(1))))
-      .toList();
+    return String.valueOf(getCounts().overlapping());
+  }
 
-    return "" + overlappingAssignments.size();
+  // Number of assignments, from any pair, sharing a section with range
+  public int countAssignmentsOverlapping(SectionRange range) {
+    return getSectionIndex().countOverlapping(range.startSection(), range.endSection());
   }
 
-  record PairAssignment(List<SectionRange> ranges) {
-    public static PairAssignment fromInput(String line) {
-      var r = Arrays.stream(line.split(","))
-        .map(SectionRange::fromInput)
-        .toList();
+  // Number of assignments, from any pair, covering all of range
+  public int countAssignmentsContaining(SectionRange range) {
+    return getSectionIndex().countContaining(range.startSection(), range.endSection());
+  }
 
-      return new PairAssignment(r.get(0), r.get(1));
-    }
+  // Number of assignments, from any pair, that are within range
+  public int countAssignmentsContainedIn(SectionRange range) {
+    return getSectionIndex().countContainedIn(range.startSection(), range.endSection());
+  }
 
-    public PairAssignment(SectionRange firstRange, SectionRange secondRange) {
-      this(List.of(firstRange, secondRange));
-    }
+  /**
+   * Calls action with each assignment sharing a section with range. Assignments are
+   * numbered in input order, so the pair is assignment / 2 and the elf within it
+   * assignment % 2.
+   */
+  public void forEachAssignmentOverlapping(SectionRange range, IntConsumer action) {
+    getSectionIndex().forEachOverlapping(range.startSection(), range.endSection(), action);
+  }
 
-    public SectionRange get(int idx) {
-      return ranges.get(idx);
-    }
+  // Number of pairs of assignments anywhere in the file that overlap each other
+  public long countOverlappingAssignmentPairs() {
+    return getSectionIndex().countOverlappingPairs();
+  }
+
+  record Counts(long contained, long overlapping) {
+  }
 
-    public String toString() {
-      return ranges.get(0) + "-" + ranges.get(1);
+  // Count pairs such as "2-4,6-8" in constant memory
+  @SneakyThrows
+  private Counts countAssignments() {
+    long contained = 0;
+    long overlapping = 0;
+
+    try (var input = openTokenizer()) {
+      while (input.hasNext()) {
+        var firstStart = input.nextInt();
+        var firstEnd = input.nextInt();
+        var secondStart = input.nextInt();
+        var secondEnd = input.nextInt();
+
+        if ((firstStart <= secondStart && firstEnd >= secondEnd) || (secondStart <= firstStart && secondEnd >= firstEnd))
+          contained++;
+
+        if (firstStart <= secondEnd && secondStart <= firstEnd)
+          overlapping++;
+      }
     }
+
+    return new Counts(contained, overlapping);
   }
 
-  record SectionRange(int startSection, int endSection) {
-    public static SectionRange fromInput(String rangeInput) {
-      var bounds = Arrays.stream(rangeInput.split("-"))
-        .map(Integer::parseInt)
-        .toList();
+  // Every assignment in the input, two per pair, parsed straight into arrays for the index
+  private IntervalIndex buildSectionIndex() {
+    var input = getInput().tokenizer();
 
-      return new SectionRange(bounds.get(0), bounds.get(1));
-    }
+    var starts = new int[256];
+    var ends = new int[256];
+    var size = 0;
 
-    boolean contains(SectionRange other) {
-      return startSection <= other.startSection && endSection >= other.endSection;
-    }
+    while (input.hasNext()) {
+      if (size + 2 > starts.length) {
+        starts = Arrays.copyOf(starts, starts.length * 2);
+        ends = Arrays.copyOf(ends, ends.length * 2);
+      }
 
-    boolean isContainedBy(SectionRange other) {
-      return other.contains(this);
+      starts[size] = input.nextInt();
+      ends[size++] = input.nextInt();
+      starts[size] = input.nextInt();
+      ends[size++] = input.nextInt();
     }
 
-    boolean overlaps(SectionRange other) {
-      // Either this overlaps the other section, or, the other section overlaps this one.
-      return (this.startSection <= other.startSection && this.endSection >= other.startSection)
-          || (other.startSection <= startSection && other.endSection >= this.startSection);
-    }
+    return new IntervalIndex(starts, ends, size);
+  }
+
+  public record SectionRange(int startSection, int endSection) {
   }
 }
@@ -1,36 +1,65 @@
 package io.github.mschout.aoc.puzzle;
 
-import com.google.common.io.Files;
 import io.github.mschout.aoc.AdventOfCodePuzzle;
+import io.github.mschout.aoc.InputTokenizer;
+import io.github.mschout.aoc.Puzzle;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+@Puzzle(year = 2022, day = 5)
 @Slf4j
 public class Day05 extends AdventOfCodePuzzle {
-  private BufferedReader inputReader;
+  private static final String ENGINE_PROPERTY = "aoc.day05.engine";
+
+  private final Engine engine;
 
   public Day05(Path inputFile) {
+    this(inputFile, Engine.valueOf(System.getProperty(ENGINE_PROPERTY, "array").toUpperCase()));
+  }
+
+  public Day05(Path inputFile, Engine engine) {
     super(inputFile);
+
+    this.engine = engine;
+  }
+
+  /**
+   * How the crate stacks are stored. Set with -Daoc.day05.engine=array|rope.
+   * <ul>
+   * <li>ARRAY - each stack is a char array, and a move copies the crates it moves.</li>
+   * <li>ROPE - each stack is a tree of blocks of crates, and a move splits and joins
+   * trees in O(log n), however many crates it moves. Slower for small stacks, but much
+   * faster when stacks are very tall and moves take large parts of them.</li>
+   * </ul>
+   */
+  public enum Engine {
+    ARRAY(ArrayCrateStack::new),
+    ROPE(RopeCrateStack::new);
+
+    private final Supplier<CrateStack> factory;
+
+    Engine(Supplier<CrateStack> factory) {
+      this.factory = factory;
+    }
+
+    CrateStack newStack() {
+      return factory.get();
+    }
   }
 
   @Override
   public String partOne() throws Exception {
-    inputReader = openInputFile();
-
-    var stacks = parseStacks(inputReader);
+    var input = getInput().tokenizer();
+    var stacks = parseStacks(input);
 
-    inputReader.lines()
-      .filter(s -> s.startsWith("move"))
-      .map(CrateMovement::parse)
-      .forEach(stacks::move);
+    while (input.hasNext())
+      stacks.move(CrateMovement.parse(input));
 
     // assert (stacks.getMessage().equals("TWSGQHNHL"));
 
@@ -39,136 +68,419 @@ public class Day05 extends AdventOfCodePuzzle {
 
   @Override
   public String partTwo() throws Exception {
-    inputReader = openInputFile();
+    var input = getInput().tokenizer();
+    var stacks = parseStacks(input);
 
-    var stacks = parseStacks(inputReader);
-
-    inputReader.lines()
-      .filter(s -> s.startsWith("move"))
-      .map(CrateMovement::parse)
-      .forEach(stacks::movePreservingOrder);
+    while (input.hasNext())
+      stacks.movePreservingOrder(CrateMovement.parse(input));
 
     // assert (stacks.getMessage().equals("JNRSCDWPP"));
 
     return stacks.getMessage();
   }
 
-  private CrateStacks parseStacks(BufferedReader inputReader) throws IOException {
-    CrateStacks crateStacks = new CrateStacks(0);
+  // Reads the drawing of the stacks, leaving input at the movements after the blank line
+  // that ends it. Only the drawing is decoded, the movements are parsed from the bytes.
+  private CrateStacks parseStacks(InputTokenizer input) {
+    var inputStacks = new ArrayList<String>();
+    var line = new StringBuilder();
 
-    var inputStacks = inputReader.lines()
-      .takeWhile(s -> !s.isBlank())
-      .toList();
+    while (input.hasRemaining()) {
+      var b = input.next();
 
-    for (int i = inputStacks.size() - 1; i >= 0; i--) {
-      var line = inputStacks.get(i);
-      if (i == inputStacks.size() - 1) {
-        var numbers = line.split("\\s+");
-        var numStacks = Integer.parseInt(numbers[numbers.length - 1]);
-        crateStacks = new CrateStacks(numStacks);
-      }
-      else {
-        for (int stackNo = 0; stackNo < crateStacks.getNumStacks(); stackNo++) {
-          // letters are at position 1, 5, 9, ...
-          var currentChar = line.charAt(4 * stackNo + 1);
-
-          if (Character.isLetter(currentChar)) {
-            crateStacks.pushItem(stackNo, currentChar);
-          }
-        }
+      if (b == '\r')
+        continue;
+
+      if (b != '\n') {
+        line.append((char) b);
+        continue;
       }
+
+      if (line.toString().isBlank())
+        break;
+
+      inputStacks.add(line.toString());
+      line.setLength(0);
     }
 
-    return crateStacks;
-  }
+    if (inputStacks.isEmpty())
+      throw new IllegalArgumentException("No stacks drawing found");
 
-  private Stack<String> readStacksInput(BufferedReader inputReader) throws IOException {
-    var stacksInput = new Stack<String>();
+    // the last line of the drawing numbers the stacks
+    var numbers = inputStacks.get(inputStacks.size() - 1).trim().split("\\s+");
+    var numStacks = Integer.parseInt(numbers[numbers.length - 1]);
+    var crateStacks = new CrateStacks(numStacks, engine, log.isTraceEnabled() ? this::traceMovement : null);
 
-    String line;
-    while ((line = inputReader.readLine()) != null) {
-      // bail out if we reached the end of the stacks definition
-      if (line.isBlank()) break;
+    for (int i = inputStacks.size() - 2; i >= 0; i--) {
+      var row = inputStacks.get(i);
 
-      stacksInput.push(line);
+      for (int stackNo = 0; stackNo < numStacks; stackNo++) {
+        // letters are at position 1, 5, 9, ...
+        var position = 4 * stackNo + 1;
+
+        if (position < row.length() && Character.isLetter(row.charAt(position)))
+          crateStacks.pushItem(stackNo, row.charAt(position));
+      }
     }
 
-    return stacksInput;
+    return crateStacks;
   }
 
-  private BufferedReader openInputFile() throws FileNotFoundException {
-    return Files.newReader(inputFile.toFile(), StandardCharsets.UTF_8);
+  private void traceMovement(CrateMovement movement) {
+    log.trace("Moved {} from stack {} to stack {}", movement.count(), movement.fromStack(), movement.toStack());
   }
 
   record CrateMovement(int count, int fromStack, int toStack) {
     // parse a movement line such as:
     // "move 2 from 3 to 4"
-    static CrateMovement parse(String action) {
-      var scanner = new Scanner(action);
-      scanner.useDelimiter(" ");
-
-      // move 2
-      scanner.next();
-      var count = scanner.nextInt();
-
-      // from 3
-      scanner.next();
-      var from = scanner.nextInt() - 1;
-
-      // to 4
-      scanner.next();
-      var to = scanner.nextInt() - 1;
+    static CrateMovement parse(InputTokenizer input) {
+      var count = input.nextInt();
+      var from = input.nextInt() - 1;
+      var to = input.nextInt() - 1;
 
       return new CrateMovement(count, from, to);
     }
   }
 
-  class CrateStacks {
+  static class CrateStacks {
     @Getter
     private int numStacks;
 
-    List<Stack<Character>> stacks = new ArrayList<>();
+    private final List<CrateStack> stacks = new ArrayList<>();
 
-    CrateStacks(int numStacks) {
+    // Called with every movement, or null. Checked on each move, so it costs nothing when
+    // tracing is off.
+    private final Consumer<CrateMovement> tracer;
+
+    CrateStacks(int numStacks, Engine engine, Consumer<CrateMovement> tracer) {
       this.numStacks = numStacks;
+      this.tracer = tracer;
 
       for (int i = 0; i < numStacks; i++)
-        stacks.add(new Stack<>());
+        stacks.add(engine.newStack());
     }
 
-    void pushItem(int stackNumber, Character item) {
+    void pushItem(int stackNumber, char item) {
       stacks.get(stackNumber).push(item);
     }
 
+    // CrateMover 9000, moves crates one at a time
     void move(CrateMovement action) {
-      for (int i = 0; i < action.count; i++)
-        stacks.get(action.toStack).push(stacks.get(action.fromStack).pop());
+      stacks.get(action.fromStack).moveTo(stacks.get(action.toStack), action.count, false);
 
-      System.out.printf("Moved %d from stack %d to stack %d\n", action.count, action.fromStack, action.toStack);
+      if (tracer != null) tracer.accept(action);
     }
 
+    // CrateMover 9001, moves all the crates at once, so they stay in the same order
     void movePreservingOrder(CrateMovement action) {
-      // Push itmes onto a temp stack, then pop that to the destination. Result is moved
-      // in same order
-      var crane = new Stack<Character>();
-
-      for (int i = 0; i < action.count; i++)
-        crane.push(stacks.get(action.fromStack).pop());
+      stacks.get(action.fromStack).moveTo(stacks.get(action.toStack), action.count, true);
 
-      while (!crane.isEmpty())
-        stacks.get(action.toStack).push(crane.pop());
+      if (tracer != null) tracer.accept(action);
     }
 
     String getMessage() {
-      return stacks.stream()
-        .map(s -> s.peek().toString())
-        .collect(Collectors.joining());
+      var message = new StringBuilder(stacks.size());
+
+      for (var stack : stacks)
+        message.append(stack.peek());
+
+      return message.toString();
+    }
+  }
+
+  interface CrateStack {
+    void push(char crate);
+
+    char peek();
+
+    int size();
+
+    /**
+     * Moves the top count crates onto destination, which must use the same engine.
+     * @param preserveOrder if false the moved crates are reversed, as if they had been
+     * moved one at a time
+     */
+    void moveTo(CrateStack destination, int count, boolean preserveOrder);
+  }
+
+  // A stack of crates, bottom first, in a char array.
+  static class ArrayCrateStack implements CrateStack {
+    private char[] crates = new char[16];
+    private int size = 0;
+
+    @Override
+    public void push(char crate) {
+      ensureCapacity(size + 1);
+      crates[size++] = crate;
+    }
+
+    @Override
+    public char peek() {
+      if (size == 0)
+        throw new IllegalStateException("Stack is empty");
+
+      return crates[size - 1];
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    // Moves the crates with a single array copy
+    @Override
+    public void moveTo(CrateStack crateStack, int count, boolean preserveOrder) {
+      var destination = (ArrayCrateStack) crateStack;
+
+      if (count > size)
+        throw new IllegalStateException("Can't move " + count + " crates from a stack of " + size);
+
+      // moved one at a time or all at once, the crates land back where they were
+      if (destination == this)
+        return;
+
+      destination.ensureCapacity(destination.size + count);
+
+      System.arraycopy(crates, size - count, destination.crates, destination.size, count);
+
+      if (!preserveOrder)
+        reverse(destination.crates, destination.size, destination.size + count);
+
+      destination.size += count;
+      size -= count;
+    }
+
+    @Override
+    public String toString() {
+      return new String(crates, 0, size);
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > crates.length)
+        crates = Arrays.copyOf(crates, Math.max(capacity, crates.length * 2));
+    }
+
+    private static void reverse(char[] array, int from, int to) {
+      for (int i = from, j = to - 1; i < j; i++, j--) {
+        var tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+      }
+    }
+  }
+
+  /**
+   * A stack of crates, bottom first, as a rope: a treap of blocks of crates, ordered by
+   * position in the stack, where each node knows how many crates are below it in the tree.
+   * <p>
+   * Moving crates splits the tree at the position of the first crate moved, and joins the
+   * split off part on to the top of the destination, both O(log n). Blocks are never
+   * copied, only shared between the two halves when a split falls inside one.
+   * <p>
+   * Reversing the moved crates (CrateMover 9000) just sets a flag on the root of the moved
+   * part. Each node pushes the flag down to its children when it is next visited, swapping
+   * them and flipping the direction its own block is read in.
+   */
+  static class RopeCrateStack implements CrateStack {
+    private static final int BLOCK_SIZE = 1024;
+
+    private Node root = null;
+
+    // Pushed crates, not added to the tree yet, so building a stack is not O(n log n)
+    private char[] pending = new char[16];
+    private int pendingSize = 0;
+
+    private static class Node {
+      // this node's crates are data[offset, offset + length), read backwards if flipped
+      private final char[] data;
+      private final int offset;
+      private final int length;
+      private boolean flipped;
+
+      // the whole subtree still has to be reversed
+      private boolean reverse = false;
+
+      private final int priority = ThreadLocalRandom.current().nextInt();
+      private Node left;
+      private Node right;
+      private int size;
+
+      Node(char[] data, int offset, int length, boolean flipped) {
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+        this.flipped = flipped;
+        this.size = length;
+      }
+
+      char get(int index) {
+        return flipped ? data[offset + length - 1 - index] : data[offset + index];
+      }
+
+      void pushDown() {
+        if (!reverse) return;
+
+        var tmp = left;
+        left = right;
+        right = tmp;
+        flipped = !flipped;
+
+        if (left != null) left.reverse = !left.reverse;
+        if (right != null) right.reverse = !right.reverse;
+
+        reverse = false;
+      }
+
+      Node update() {
+        size = size(left) + length + size(right);
+        return this;
+      }
+    }
+
+    @Override
+    public void push(char crate) {
+      if (pendingSize == pending.length)
+        pending = Arrays.copyOf(pending, pendingSize * 2);
+
+      pending[pendingSize++] = crate;
     }
 
-    void dump() {
-      for (int i = 0; i < stacks.size(); i++) {
-        System.out.printf("%d: %s\n", i + 1, stacks.get(i));
+    @Override
+    public char peek() {
+      flush();
+
+      if (root == null)
+        throw new IllegalStateException("Stack is empty");
+
+      var node = root;
+      node.pushDown();
+
+      while (node.right != null) {
+        node = node.right;
+        node.pushDown();
       }
+
+      return node.get(node.length - 1);
+    }
+
+    @Override
+    public int size() {
+      return size(root) + pendingSize;
+    }
+
+    @Override
+    public void moveTo(CrateStack crateStack, int count, boolean preserveOrder) {
+      var destination = (RopeCrateStack) crateStack;
+
+      flush();
+      destination.flush();
+
+      if (count > size(root))
+        throw new IllegalStateException("Can't move " + count + " crates from a stack of " + size(root));
+
+      // moved one at a time or all at once, the crates land back where they were
+      if (count == 0 || destination == this)
+        return;
+
+      var parts = split(root, size(root) - count);
+      var moved = parts[1];
+
+      if (!preserveOrder)
+        moved.reverse = !moved.reverse;
+
+      root = parts[0];
+      destination.root = merge(destination.root, moved);
+    }
+
+    @Override
+    public String toString() {
+      flush();
+
+      var crates = new StringBuilder(size(root));
+      appendTo(root, crates);
+
+      return crates.toString();
+    }
+
+    // Add the pending crates to the top of the tree, a block at a time.
+    private void flush() {
+      for (int start = 0; start < pendingSize; start += BLOCK_SIZE) {
+        var block = Arrays.copyOfRange(pending, start, Math.min(pendingSize, start + BLOCK_SIZE));
+        root = merge(root, new Node(block, 0, block.length, false));
+      }
+
+      pendingSize = 0;
+    }
+
+    private static int size(Node node) {
+      return node == null ? 0 : node.size;
+    }
+
+    // Split into the first count crates and the rest.
+    private static Node[] split(Node node, int count) {
+      if (node == null)
+        return new Node[] { null, null };
+
+      node.pushDown();
+
+      var leftSize = size(node.left);
+
+      if (count <= leftSize) {
+        var parts = split(node.left, count);
+        node.left = parts[1];
+        return new Node[] { parts[0], node.update() };
+      }
+
+      if (count >= leftSize + node.length) {
+        var parts = split(node.right, count - leftSize - node.length);
+        node.right = parts[0];
+        return new Node[] { node.update(), parts[1] };
+      }
+
+      // the split is inside this node's block, so it becomes two nodes sharing the block
+      var inBlock = count - leftSize;
+      Node first;
+      Node second;
+
+      if (node.flipped) {
+        first = new Node(node.data, node.offset + node.length - inBlock, inBlock, true);
+        second = new Node(node.data, node.offset, node.length - inBlock, true);
+      }
+      else {
+        first = new Node(node.data, node.offset, inBlock, false);
+        second = new Node(node.data, node.offset + inBlock, node.length - inBlock, false);
+      }
+
+      return new Node[] { merge(node.left, first), merge(second, node.right) };
+    }
+
+    // Join two trees, all of first's crates below all of second's.
+    private static Node merge(Node first, Node second) {
+      if (first == null) return second;
+      if (second == null) return first;
+
+      if (first.priority > second.priority) {
+        first.pushDown();
+        first.right = merge(first.right, second);
+        return first.update();
+      }
+      else {
+        second.pushDown();
+        second.left = merge(first, second.left);
+        return second.update();
+      }
+    }
+
+    private static void appendTo(Node node, StringBuilder crates) {
+      if (node == null) return;
+
+      node.pushDown();
+      appendTo(node.left, crates);
+
+      for (int i = 0; i < node.length; i++)
+        crates.append(node.get(i));
+
+      appendTo(node.right, crates);
     }
   }
 }
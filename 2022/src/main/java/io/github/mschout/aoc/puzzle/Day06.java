@@ -1,71 +1,256 @@
 package io.github.mschout.aoc.puzzle;
 
-import com.google.common.collect.EvictingQueue;
 import io.github.mschout.aoc.AdventOfCodePuzzle;
+import io.github.mschout.aoc.Puzzle;
+import io.github.mschout.aoc.PuzzleInput;
 import lombok.Getter;
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashSet;
-import java.util.Set;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
 
+@Puzzle(year = 2022, day = 6)
 @Slf4j
 public class Day06 extends AdventOfCodePuzzle {
+  // Signals can be far larger than memory, so they are read through a buffer this size
+  private static final int BUFFER_SIZE = 1 << 20;
+
+  // Files smaller than this are not worth splitting up
+  private static final int PARALLEL_THRESHOLD = 64 << 20;
+
   public Day06(Path inputFile) {
     super(inputFile);
   }
 
+  // Both markers are found in one pass, so the input is only read once
+  @Getter(lazy = true)
+  private final Markers markers = findPacketAndMessage();
+
   @Override
   public String partOne() throws Exception {
-    var bytesRead = findStartSignal(4);
-    return "" + bytesRead;
+    return String.valueOf(getMarkers().packet());
   }
 
   @Override
   public String partTwo() throws Exception {
-    var bytesRead = findStartSignal(14);
-    return "" + bytesRead;
+    return String.valueOf(getMarkers().message());
   }
 
-  private int findStartSignal(int markerLength) throws IOException {
-    var input = Files.newBufferedReader(inputFile);
+  record Markers(long packet, long message) {
+  }
+
+  private Markers findPacketAndMessage() {
+    var found = findMarkers(4, 14);
+
+    return new Markers(found[0], found[1]);
+  }
 
-    var signalDetector = new SignalStartDetector(markerLength);
+  /**
+   * Finds the first marker of each of the given lengths, all in one pass over the input.
+   * <p>
+   * On machines with more than one core, files of {@value #PARALLEL_THRESHOLD} bytes or
+   * more are split into chunks that are scanned in parallel. Each chunk starts the longest
+   * marker length before its own first byte, so a marker crossing into it from the chunk
+   * before is still seen whole, and the earliest marker found in any chunk wins. Chunks
+   * stop early once they can no longer find anything earlier than what other chunks have
+   * already found.
+   * @return for each marker length, the bytes read up to the end of its first marker, or
+   * -1 if there is none
+   */
+  @SneakyThrows
+  public long[] findMarkers(int... markerLengths) {
+    var parallel = Runtime.getRuntime().availableProcessors() > 1
+      && !PuzzleInput.isStandardInput(inputFile)
+      && Files.size(inputFile) >= PARALLEL_THRESHOLD;
 
-    char c;
-    while ((c = (char) input.read()) > 0) {
-      signalDetector.add(c);
+    if (parallel)
+      return findMarkersInParallel(markerLengths);
 
-      if (signalDetector.haveStartSignal())
-        return signalDetector.getBytesRead();
+    var scanner = new MarkerScanner(markerLengths, 0, notFound(markerLengths.length));
+
+    try (var channel = openChannel()) {
+      scanner.scan(channel, Long.MAX_VALUE);
     }
 
-    return -1;
+    return scanner.markers();
   }
 
-  class SignalStartDetector {
-    private final EvictingQueue<Character> window;
-    private final int windowSize;
+  private long[] findMarkersInParallel(int[] markerLengths) throws IOException {
+    var size = Files.size(inputFile);
+    var overlap = Arrays.stream(markerLengths).max().orElse(0);
 
-    @Getter
-    private int bytesRead = 0;
+    var chunkSize = Math.max(PARALLEL_THRESHOLD / 4, size / (Runtime.getRuntime().availableProcessors() * 4L) + 1);
+    var chunks = (int) ((size + chunkSize - 1) / chunkSize);
+
+    // Earliest marker of each length found by any chunk so far
+    var earliest = notFound(markerLengths.length);
+
+    IntStream.range(0, chunks).parallel().forEach(chunk -> {
+      var chunkStart = chunk * chunkSize;
+      var scanStart = Math.max(0, chunkStart - overlap);
+      var scanEnd = Math.min(size, chunkStart + chunkSize);
+
+      scanChunk(new MarkerScanner(markerLengths, scanStart, earliest), scanStart, scanEnd - scanStart);
+    });
+
+    var markers = new long[markerLengths.length];
+    for (int i = 0; i < markers.length; i++)
+      markers[i] = earliest.get(i) == Long.MAX_VALUE ? -1 : earliest.get(i);
 
-    SignalStartDetector(final int markerLength) {
-      this.window = EvictingQueue.create(markerLength);
-      this.windowSize = markerLength;
+    return markers;
+  }
+
+  private static AtomicLongArray notFound(int markers) {
+    var earliest = new AtomicLongArray(markers);
+
+    for (int i = 0; i < markers; i++)
+      earliest.set(i, Long.MAX_VALUE);
+
+    return earliest;
+  }
+
+  @SneakyThrows
+  private void scanChunk(MarkerScanner scanner, long start, long length) {
+    try (var channel = FileChannel.open(inputFile, StandardOpenOption.READ)) {
+      channel.position(start);
+      scanner.scan(channel, length);
     }
+  }
 
-    public boolean haveStartSignal() {
-      Set<Character> uniqChars = new HashSet<>(window);
+  /**
+   * Runs a MarkerDetector for each marker length over part of the input, starting at
+   * offset. Markers found are reported to earliest, which is shared with the scanners of
+   * the other chunks when scanning in parallel.
+   */
+  static class MarkerScanner {
+    private final MarkerDetector[] detectors;
+    private final long offset;
+    private final AtomicLongArray earliest;
 
-      return uniqChars.size() == windowSize;
+    MarkerScanner(int[] markerLengths, long offset, AtomicLongArray earliest) {
+      this.detectors = new MarkerDetector[markerLengths.length];
+      this.offset = offset;
+      this.earliest = earliest;
+
+      for (int i = 0; i < markerLengths.length; i++)
+        detectors[i] = new MarkerDetector(markerLengths[i]);
     }
 
-    public void add(Character c) {
-      window.add(c);
+    // Scan at most length bytes of channel, or until there is nothing left to find.
+    void scan(ReadableByteChannel channel, long length) throws IOException {
+      var buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, Math.max(1, length)));
+      var bytes = buffer.array();
+      var remaining = length;
+
+      while (remaining > 0 && !isDone(length - remaining)) {
+        buffer.clear();
+        if (remaining < buffer.capacity())
+          buffer.limit((int) remaining);
+
+        if (channel.read(buffer) < 0) break;
+
+        var read = buffer.position();
+        remaining -= read;
+
+        // each detector takes the whole buffer in turn, while it is still in cache
+        for (int d = 0; d < detectors.length; d++) {
+          var detector = detectors[d];
+          if (detector.found()) continue;
+
+          for (int i = 0; i < read; i++) {
+            if (detector.add(bytes[i])) {
+              earliest.accumulateAndGet(d, offset + detector.getMarker(), Math::min);
+              break;
+            }
+          }
+        }
+      }
+    }
+
+    // Bytes read up to the end of the first marker of each length, or -1
+    long[] markers() {
+      var markers = new long[detectors.length];
+
+      for (int i = 0; i < detectors.length; i++)
+        markers[i] = detectors[i].found() ? offset + detectors[i].getMarker() : -1;
+
+      return markers;
+    }
+
+    // Done when every marker has been found, here or at or before this point elsewhere.
+    private boolean isDone(long scanned) {
+      for (int i = 0; i < detectors.length; i++) {
+        if (!detectors[i].found() && earliest.get(i) > offset + scanned)
+          return false;
+      }
+
+      return true;
+    }
+  }
+
+  /**
+   * Finds the first point in a signal where the last markerLength bytes are all different.
+   * <p>
+   * The bytes in the window are counted in a 256 entry array, together with how many byte
+   * values appear in it more than once. Each byte moves the window along one, updating
+   * two counts, so the whole signal is scanned in O(n) whatever the marker length.
+   */
+  static class MarkerDetector {
+    private final int markerLength;
+
+    // the last markerLength bytes, in a ring
+    private final byte[] window;
+    private int next = 0;
+
+    private final int[] counts = new int[256];
+    private int duplicated = 0;
+
+    private long bytesRead = 0;
+
+    // Bytes read up to the end of the first marker, or -1 if none was found yet
+    @Getter
+    private long marker = -1;
+
+    MarkerDetector(int markerLength) {
+      if (markerLength < 1 || markerLength > 256)
+        throw new IllegalArgumentException("Marker length must be from 1 to 256: " + markerLength);
+
+      this.markerLength = markerLength;
+      this.window = new byte[markerLength];
+    }
+
+    public boolean found() {
+      return marker >= 0;
+    }
+
+    // Returns true if b completes the first marker
+    public boolean add(byte b) {
+      // the oldest byte leaves the window
+      if (bytesRead >= markerLength && --counts[window[next] & 0xFF] == 1)
+        duplicated--;
+
+      if (++counts[b & 0xFF] == 2)
+        duplicated++;
+
+      window[next] = b;
+      next = next + 1 == markerLength ? 0 : next + 1;
       bytesRead++;
+
+      if (marker < 0 && duplicated == 0 && bytesRead >= markerLength) {
+        marker = bytesRead;
+        return true;
+      }
+
+      return false;
     }
   }
 }
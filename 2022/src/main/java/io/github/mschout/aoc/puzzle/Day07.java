@@ -1,162 +1,471 @@
 package io.github.mschout.aoc.puzzle;
 
-import com.google.common.base.Splitter;
 import io.github.mschout.aoc.AdventOfCodePuzzle;
+import io.github.mschout.aoc.InputTokenizer;
+import io.github.mschout.aoc.Puzzle;
+import io.github.mschout.aoc.collect.LongIntHashMap;
+import io.github.mschout.aoc.collect.NameTable;
+import io.github.mschout.aoc.graph.IntQueue;
 import lombok.Getter;
-import lombok.NoArgsConstructor;
+import lombok.SneakyThrows;
 
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 
+@Puzzle(year = 2022, day = 7)
 public class Day07 extends AdventOfCodePuzzle {
-  private final ElfDeviceFS device = new ElfDeviceFS();
+  // Loaded by whichever part runs first, so the parts don't depend on each other
+  @Getter(lazy = true)
+  private final ElfDeviceFS device = loadDevice();
 
   public Day07(Path inputFile) {
     super(inputFile);
   }
 
+  // Built once, then shared by both parts and any other queries
+  @Getter(lazy = true)
+  private final SizeIndex sizeIndex = new SizeIndex(getDevice());
+
   @Override
   public String partOne() throws Exception {
-    device.load(inputFile);
-
-    return "" + device.getRoot().sumByMaxSize(100_000);
+    return "" + getSizeIndex().sumOfSizesAtMost(100_000);
   }
 
   @Override
   public String partTwo() throws Exception {
-    final var diskSize = 70_000_000;
-    final var requiredFreeSpace = 30_000_000;
+    var dirToDelete = smallestDeletionFor(70_000_000, 30_000_000);
+
+    return "" + dirToDelete.map(Directory::size).orElse(0L);
+  }
+
+  // The k largest directories, largest first
+  public List<Directory> largestDirectories(int k) {
+    return getSizeIndex().largest(k);
+  }
+
+  // Total size of the file or directory at an absolute path such as "/a/b"
+  public long sizeOf(String path) {
+    var node = getDevice().resolve(path);
 
-    final var currentFreeSpace = diskSize - device.getRoot().getSize();
+    if (node == ElfDeviceFS.NONE)
+      throw new IllegalArgumentException("No such file or directory: " + path);
 
-    var minSizeToDelete = requiredFreeSpace - currentFreeSpace;
+    return getDevice().size(node);
+  }
+
+  // Directories with a total size in [minSize, maxSize], smallest first
+  public List<Directory> directoriesSized(long minSize, long maxSize) {
+    return getSizeIndex().sized(minSize, maxSize);
+  }
+
+  // Directories under path, itself included, with a total size in [minSize, maxSize]
+  public List<Directory> directoriesSized(String path, long minSize, long maxSize) {
+    var dir = getDevice().resolve(path);
 
-    var fileToDelete = device.getRoot().findFileToDelete(minSizeToDelete);
+    if (dir == ElfDeviceFS.NONE || !getDevice().isDir(dir))
+      throw new IllegalArgumentException("No such directory: " + path);
 
-    return "" + fileToDelete.getSize();
+    return getSizeIndex().sizedWithin(dir, minSize, maxSize);
   }
 
-  @NoArgsConstructor
-  @Getter
-  class ElfDeviceFS {
-    private final File root = new File("/");
+  /**
+   * The smallest directory that, once deleted, leaves at least requiredFreeSpace free on a
+   * disk of diskSize. Empty if there already is enough free space.
+   */
+  public Optional<Directory> smallestDeletionFor(long diskSize, long requiredFreeSpace) {
+    var index = getSizeIndex();
+    var needed = requiredFreeSpace - (diskSize - index.totalSize());
 
-    private File currentDir = root;
+    if (needed <= 0)
+      return Optional.empty();
+
+    return index.smallestAtLeast(needed);
+  }
+
+  public record Directory(String path, long size) {
+  }
+
+  // Streamed, so the transcript is never held in memory, only the tree built from it
+  @SneakyThrows
+  private ElfDeviceFS loadDevice() {
+    var device = new ElfDeviceFS();
+
+    try (var input = openTokenizer()) {
+      device.load(input);
+    }
+
+    return device;
+  }
+
+  /**
+   * The filesystem rebuilt from a transcript, as a trie of names kept in parallel arrays.
+   * Every file and directory is a node number, indexing its parent, first child, next
+   * sibling, name and size, so a node costs a few dozen bytes instead of an object, a
+   * String and a set of children each. Names are interned, and a child is found from its
+   * parent and name through one shared hash map.
+   */
+  static class ElfDeviceFS {
+    static final int ROOT = 0;
+    static final int NONE = -1;
+
+    private int count = 0;
+    private int[] parents = new int[1024];
+    private int[] firstChildren = new int[1024];
+    private int[] nextSiblings = new int[1024];
+    private int[] names = new int[1024];
+    private long[] sizes = new long[1024];
+    private final BitSet dirs = new BitSet();
+
+    private final NameTable nameTable = new NameTable();
+
+    // (parent << 32 | name) -> child
+    private final LongIntHashMap children = new LongIntHashMap(1024);
+
+    // Bytes of the current name token, reused for every line
+    private byte[] scratch = new byte[64];
+
+    private int currentDir = ROOT;
+
+    ElfDeviceFS() {
+      addNode(NONE, nameTable.intern(new byte[0], 0), true, 0);
+    }
+
+    public void load(InputTokenizer input) {
+      while (input.hasNext()) {
+        if (input.peek() == '$') {
+          input.nextToken();
+          input.nextToken();
 
-    public void load(Path input) throws IOException {
-      Files.lines(input).forEach(line -> {
-        if (line.startsWith("$")) {
           // we only need to do something if we are changing directory.
           // we can ignore "$ ls" lines.
-          if (line.startsWith("$ cd")) {
-            // change directory
-            chdir(line.split("\\s+")[2]);
+          if (input.tokenEquals("cd")) {
+            input.nextToken();
+            chdir(input);
           }
         }
+        else if (input.peek() >= '0' && input.peek() <= '9') {
+          // its output: "<size> <name>"
+          var size = input.nextLong();
+          input.nextToken();
+          addChild(currentDir, internToken(input), false, size);
+        }
         else {
-          // its output
-          addFile(line);
+          // its output: "dir <name>"
+          input.nextToken();
+          input.nextToken();
+          addChild(currentDir, internToken(input), true, 0);
         }
-      });
+      }
+    }
+
+    int nodeCount() {
+      return count;
     }
 
-    void chdir(String filename) {
-      if (filename.equals("..")) {
-        currentDir = currentDir.getParent();
+    int parent(int node) {
+      return parents[node];
+    }
+
+    int firstChild(int node) {
+      return firstChildren[node];
+    }
+
+    int nextSibling(int node) {
+      return nextSiblings[node];
+    }
+
+    String name(int node) {
+      return nameTable.name(names[node]);
+    }
+
+    // For a directory, the total size of everything under it
+    long size(int node) {
+      return sizes[node];
+    }
+
+    boolean isDir(int node) {
+      return dirs.get(node);
+    }
+
+    // The node at an absolute path such as "/a/b", or NONE
+    int resolve(String path) {
+      if (!path.startsWith("/"))
+        throw new IllegalArgumentException("Path must be absolute: " + path);
+
+      var node = ROOT;
+
+      for (var name : path.substring(1).split("/")) {
+        if (name.isEmpty())
+          continue;
+
+        var number = nameTable.find(name);
+        node = number == NONE ? NONE : child(node, number);
+
+        if (node == NONE)
+          return NONE;
+      }
+
+      return node;
+    }
+
+    private void chdir(InputTokenizer input) {
+      if (input.tokenEquals("/")) {
+        currentDir = ROOT;
+      }
+      else if (input.tokenEquals("..")) {
+        if (currentDir == ROOT)
+          throw new IllegalArgumentException("cd .. from the root directory");
+
+        currentDir = parents[currentDir];
       }
       else {
-        var file = findFile(filename).orElseThrow();
+        var dir = child(currentDir, internToken(input));
+
+        if (dir == NONE)
+          throw new IllegalArgumentException("No such directory: " + input.tokenString());
+
+        if (!isDir(dir))
+          throw new IllegalArgumentException(input.tokenString() + " is not a directory!");
+
+        currentDir = dir;
+      }
+    }
 
-        if (!file.isDir())
-          throw new IllegalArgumentException(filename + " is not a directory!");
+    private int child(int dir, int name) {
+      return children.getOrDefault(((long) dir << 32) | name, NONE);
+    }
+
+    private void addChild(int dir, int name, boolean isDir, long size) {
+      var key = ((long) dir << 32) | name;
+
+      // listing the same directory twice must not count its files twice
+      if (children.containsKey(key))
+        return;
+
+      children.put(key, addNode(dir, name, isDir, size));
 
-        currentDir = file;
+      for (var ancestor = dir; ancestor != NONE; ancestor = parents[ancestor])
+        sizes[ancestor] += size;
+    }
+
+    private int addNode(int parent, int name, boolean isDir, long size) {
+      if (count == parents.length)
+        grow();
+
+      var node = count++;
+      parents[node] = parent;
+      firstChildren[node] = NONE;
+      names[node] = name;
+      sizes[node] = size;
+      dirs.set(node, isDir);
+
+      // children are pushed onto the front of their parent's list
+      if (parent != NONE) {
+        nextSiblings[node] = firstChildren[parent];
+        firstChildren[parent] = node;
+      }
+      else {
+        nextSiblings[node] = NONE;
       }
+
+      return node;
     }
 
-    void addFile(String inputLine) {
-      var fields = Splitter.on(" ").splitToList(inputLine);
+    private int internToken(InputTokenizer input) {
+      var length = input.tokenLength();
+
+      if (length > scratch.length)
+        scratch = new byte[Math.max(length, scratch.length * 2)];
+
+      for (int i = 0; i < length; i++)
+        scratch[i] = input.tokenByte(i);
 
-      if (fields.get(0).equals("dir"))
-        currentDir.addSubFile(new File(fields.get(1)));
-      else
-        currentDir.addSubFile(new File(fields.get(1), Integer.parseInt(fields.get(0))));
+      return nameTable.intern(scratch, length);
     }
 
-    private Optional<File> findFile(String name) {
-      if (name.equals("/"))
-        return Optional.of(getRoot());
+    private void grow() {
+      var capacity = parents.length * 2;
 
-      return currentDir.getSubFiles().stream().filter(file -> file.getName().equals(name)).findFirst();
+      parents = Arrays.copyOf(parents, capacity);
+      firstChildren = Arrays.copyOf(firstChildren, capacity);
+      nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+      names = Arrays.copyOf(names, capacity);
+      sizes = Arrays.copyOf(sizes, capacity);
     }
   }
 
-  @Getter
-  class File {
-    private final String name;
-    private final int size;
-    private final boolean isDir;
-    private File parent;
-    private final Set<File> subFiles = new HashSet<>();
+  /**
+   * The size of every directory, numbered in pre-order from the root, so each directory's
+   * subtree is the range of numbers from it to subtreeEnd. The sizes are also kept sorted,
+   * with running totals, so the queries are binary searches rather than walks of the tree.
+   */
+  static class SizeIndex {
+    private final int count;
+
+    private final ElfDeviceFS device;
+
+    // By pre-order number
+    private final int[] nodes;
+    private final int[] subtreeEnd;
+    private final long[] sizes;
+
+    // Pre-order number of each directory node, NONE for files
+    private final int[] numbers;
+
+    // Directory numbers by ascending size, their sizes, and prefix sums of those sizes
+    private final int[] bySize;
+    private final long[] sortedSizes;
+    private final long[] sizeSums;
+
+    SizeIndex(ElfDeviceFS device) {
+      this.device = device;
+
+      numbers = new int[device.nodeCount()];
+      Arrays.fill(numbers, ElfDeviceFS.NONE);
+
+      var order = new int[device.nodeCount()];
+      var dirCount = 0;
+
+      // iterative pre-order walk, so deep trees can't overflow the stack
+      var stack = new IntQueue();
+      stack.addFirst(ElfDeviceFS.ROOT);
+
+      while (!stack.isEmpty()) {
+        var dir = stack.removeFirst();
+
+        numbers[dir] = dirCount;
+        order[dirCount++] = dir;
+
+        for (var child = device.firstChild(dir); child != ElfDeviceFS.NONE; child = device.nextSibling(child)) {
+          if (device.isDir(child))
+            stack.addFirst(child);
+        }
+      }
+
+      count = dirCount;
+      nodes = Arrays.copyOf(order, count);
+      sizes = new long[count];
+      subtreeEnd = new int[count];
+
+      for (int i = 0; i < count; i++) {
+        sizes[i] = device.size(nodes[i]);
+        subtreeEnd[i] = i + 1;
+      }
+
+      // children come after their parents, so going backwards finishes each subtree
+      // before extending its parent's
+      for (int i = count - 1; i > 0; i--) {
+        var parent = numbers[device.parent(nodes[i])];
+        subtreeEnd[parent] = Math.max(subtreeEnd[parent], subtreeEnd[i]);
+      }
+
+      sortedSizes = Arrays.copyOf(sizes, count);
+      Arrays.sort(sortedSizes);
+
+      // each directory goes at the first place its size sorts to, after any others already
+      // placed with the same size
+      bySize = new int[count];
+      var placed = new int[count];
+
+      for (int i = 0; i < count; i++) {
+        var first = firstAtLeast(sizes[i]);
+        bySize[first + placed[first]++] = i;
+      }
+
+      sizeSums = new long[count + 1];
 
-    File(String name, int size) {
-      this.name = name;
-      this.size = size;
-      this.isDir = false;
+      for (int i = 0; i < count; i++)
+        sizeSums[i + 1] = sizeSums[i] + sortedSizes[i];
     }
 
-    File(String name) {
-      this.name = name;
-      this.size = 0;
-      this.isDir = true;
+    long totalSize() {
+      return sizes[0];
     }
 
-    void addSubFile(File file) {
-      file.parent = this;
-      subFiles.add(file);
+    long sumOfSizesAtMost(long maxSize) {
+      return sizeSums[firstAbove(maxSize)];
     }
 
-    int getSize() {
-      // if its a directory call size on each item
-      if (size == 0)
-        return subFiles.stream().mapToInt(File::getSize).sum();
+    List<Directory> largest(int k) {
+      var result = new ArrayList<Directory>();
 
-      return size;
+      for (int i = count - 1; i >= Math.max(0, count - k); i--)
+        result.add(directory(bySize[i]));
+
+      return result;
     }
 
-    int sumByMaxSize(int maxSize) {
-      var currentFileSize = getSize();
+    List<Directory> sized(long minSize, long maxSize) {
+      var result = new ArrayList<Directory>();
+
+      for (int i = firstAtLeast(minSize); i < count && sortedSizes[i] <= maxSize; i++)
+        result.add(directory(bySize[i]));
+
+      return result;
+    }
 
-      if (currentFileSize > maxSize)
-        currentFileSize = 0;
+    Optional<Directory> smallestAtLeast(long minSize) {
+      var i = firstAtLeast(minSize);
 
-      return currentFileSize + subFiles.stream()
-        .filter(File::isDir)
-        .mapToInt(file -> file.sumByMaxSize(maxSize))
-        .sum();
+      return i < count ? Optional.of(directory(bySize[i])) : Optional.empty();
     }
 
-    List<File> allDirs() {
-      var dirs = new ArrayList<File>();
+    // Like sized(), for the directories under dir, itself included, in pre-order
+    List<Directory> sizedWithin(int dir, long minSize, long maxSize) {
+      var number = numbers[dir];
 
-      if (isDir)
-        dirs.add(this);
+      if (number == ElfDeviceFS.NONE)
+        throw new IllegalArgumentException(device.name(dir) + " is not an indexed directory");
 
-      subFiles.stream()
-        .filter(File::isDir)
-        .forEach(dir -> dirs.addAll(dir.allDirs()));
+      var result = new ArrayList<Directory>();
 
-      return dirs;
+      for (int i = number; i < subtreeEnd[number]; i++) {
+        if (sizes[i] >= minSize && sizes[i] <= maxSize)
+          result.add(directory(i));
+      }
+
+      return result;
     }
 
-    File findFileToDelete(int minSize) {
-      var file = allDirs().stream()
-        .filter(dir -> dir.getSize() >= minSize)
-        .min(Comparator.comparingInt(File::getSize));
+    private Directory directory(int number) {
+      return new Directory(path(number), sizes[number]);
+    }
+
+    private String path(int number) {
+      if (number == 0)
+        return "/";
+
+      // ancestors are found from the bottom up, so queue each one in front of the last
+      var ancestors = new IntQueue();
+
+      for (var dir = nodes[number]; dir != ElfDeviceFS.ROOT; dir = device.parent(dir))
+        ancestors.addFirst(dir);
+
+      var path = new StringBuilder();
+
+      while (!ancestors.isEmpty())
+        path.append('/').append(device.name(ancestors.removeFirst()));
+
+      return path.toString();
+    }
+
+    private int firstAtLeast(long size) {
+      int from = 0, to = count;
+
+      while (from < to) {
+        var middle = (from + to) >>> 1;
+
+        if (sortedSizes[middle] < size)
+          from = middle + 1;
+        else
+          to = middle;
+      }
+
+      return from;
+    }
 
-      return file.orElseThrow();
+    private int firstAbove(long size) {
+      return size == Long.MAX_VALUE ? count : firstAtLeast(size + 1);
     }
   }
 }
@@ -1,58 +1,51 @@
 package io.github.mschout.aoc.puzzle;
 
-import com.google.common.collect.Lists;
 import io.github.mschout.aoc.AdventOfCodePuzzle;
+import io.github.mschout.aoc.Puzzle;
+import io.github.mschout.aoc.PuzzleInput;
+import io.github.mschout.aoc.grid.ByteGrid;
+import lombok.Getter;
 
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
 
+@Puzzle(year = 2022, day = 8)
 public class Day08 extends AdventOfCodePuzzle {
+  @Getter(lazy = true)
+  private final TreeGrid grid = new TreeGrid(getInput());
+
   public Day08(Path inputFile) {
     super(inputFile);
   }
 
   @Override
   public String partOne() throws Exception {
-    var grid = new TreeGrid(Files.lines(inputFile).toList());
-
-    return "" + grid.countVisible();
+    return "" + getGrid().countVisible();
   }
 
   @Override
   public String partTwo() throws Exception {
-    var grid = new TreeGrid(Files.lines(inputFile).toList());
-    return String.valueOf(grid.maxScenicScore());
+    return String.valueOf(getGrid().maxScenicScore());
   }
 
   static class TreeGrid {
-    private final int size;
-    private final int[][] treeHeights;
+    // Border value, lower than any tree ('0' - '9') so the view past the edge is clear
+    private static final byte EDGE = 0;
 
-    TreeGrid(List<String> inputLines) {
-      size = inputLines.size();
-      treeHeights = new int[size][size];
+    private final ByteGrid heights;
 
-      for (int y = 0; y < size; y++) {
-        var heights = Lists.charactersOf(inputLines.get(y))
-          .stream()
-          .map(ch -> Integer.parseInt(ch.toString()))
-          .toList();
+    private final int[] directions;
 
-        for (int x = 0; x < heights.size(); x++)
-          treeHeights[y][x] = heights.get(x);
-      }
+    TreeGrid(PuzzleInput input) {
+      heights = ByteGrid.parse(input, EDGE);
+      directions = heights.neighbourOffsets();
     }
 
     int countVisible() {
       int visibleCount = 0;
 
-      // since outer trees are all visible, only need to look at interior elements 1..n-1
-      // in either direction
-      for (int y = 0; y < size; y++) {
-        for (int x = 0; x < size; x++) {
-          if (isVisible(x, y)) visibleCount++;
+      for (int y = 0; y < heights.height(); y++) {
+        for (int index = heights.index(0, y); index < heights.index(heights.width(), y); index++) {
+          if (isVisible(index)) visibleCount++;
         }
       }
 
@@ -60,115 +53,58 @@ public class Day08 extends AdventOfCodePuzzle {
     }
 
     int maxScenicScore() {
-      var scores = new ArrayList<Integer>();
-
-      // we can exclude outer edges since those will have a score in one direction of 0
-      for (int x = 1; x < size - 1; x++) {
-        for (int y = 1; y < size - 1; y++)
-          scores.add(scenicScore(x, y));
-      }
-
-      return scores.stream().max(Integer::compare).orElseThrow();
-    }
-
-    boolean isVisible(int x, int y) {
-      return isVisibleX(x, y) || isVisibleY(x, y);
-    }
+      int maxScore = 0;
 
-    boolean isVisibleX(int x, int y) {
-      // outside edge of grid is visible
-      if (x == 0 || x == size - 1) return true;
-
-      var treeHeight = getTreeHeight(x, y);
-
-      return isVisibleInXRange(y, 0, x, treeHeight)
-          || isVisibleInXRange(y, x + 1, size, treeHeight);
-    }
-
-    boolean isVisibleInXRange(int y, int fromx, int tox, int height) {
-      for (int i = fromx; i < tox; i++) {
-        if (getTreeHeight(i, y) >= height) return false;
+      // trees on the edge have a score of 0, so only the interior needs to be checked
+      for (int y = 1; y < heights.height() - 1; y++) {
+        for (int index = heights.index(1, y); index < heights.index(heights.width() - 1, y); index++)
+          maxScore = Math.max(maxScore, scenicScore(index));
       }
 
-      return true;
-    }
-
-    boolean isVisibleY(int x, int y) {
-      // outside edge of grid is visible
-      if (y == 0 || y == size - 1) return true;
-
-      var treeHeight = getTreeHeight(x, y);
-
-      return isVisibleInYRange(x, 0, y, treeHeight)
-          || isVisibleInYRange(x, y + 1, size, treeHeight);
+      return maxScore;
     }
 
-    private boolean isVisibleInYRange(int x, int fromy, int toy, int height) {
-      for (int i = fromy; i < toy; i++)
-        if (getTreeHeight(x, i) >= height) return false;
-
-      return true;
-    }
-
-    int getTreeHeight(int x, int y) {
-      return treeHeights[y][x];
-    }
-
-    int scenicScore(int x, int y) {
-      return scenicScoreUp(x, y) * scenicScoreRight(x, y) * scenicScoreDown(x, y) * scenicScoreLeft(x, y);
-    }
-
-    private int scenicScoreUp(int x, int y) {
-      var treeHeight = getTreeHeight(x, y);
-
-      int score = 0;
-
-      for (int i = y - 1; i >= 0; i--) {
-        score++;
-
-        if (getTreeHeight(x, i) >= treeHeight) break;
+    boolean isVisible(int index) {
+      for (var direction : directions) {
+        if (isVisibleFrom(index, direction)) return true;
       }
 
-      return score;
+      return false;
     }
 
-    private int scenicScoreDown(int x, int y) {
-      var treeHeight = getTreeHeight(x, y);
+    // True if every tree between this one and the edge, in the given direction, is shorter.
+    private boolean isVisibleFrom(int index, int direction) {
+      var treeHeight = heights.get(index);
 
-      int score = 0;
-
-      for (int i = y + 1; i < size; i++) {
-        score++;
-        if (getTreeHeight(x, i) >= treeHeight) break;
+      for (int i = index + direction; heights.get(i) != EDGE; i += direction) {
+        if (heights.get(i) >= treeHeight) return false;
       }
 
-      return score;
+      return true;
     }
 
-    private int scenicScoreLeft(int x, int y) {
-      final var treeHeight = getTreeHeight(x, y);
-
-      int score = 0;
+    int scenicScore(int index) {
+      int score = 1;
 
-      for (int i = x - 1; i >= 0; i--) {
-        score++;
-        if (getTreeHeight(i, y) >= treeHeight) break;
-      }
+      for (var direction : directions)
+        score *= viewingDistance(index, direction);
 
       return score;
     }
 
-    private int scenicScoreRight(int x, int y) {
-      final var treeHeight = getTreeHeight(x, y);
+    // Number of trees that can be seen in the given direction, up to the edge or the first
+    // tree at least as tall as this one.
+    private int viewingDistance(int index, int direction) {
+      var treeHeight = heights.get(index);
 
-      int score = 0;
+      int distance = 0;
 
-      for (int i = x + 1; i < size; i++) {
-        score++;
-        if (getTreeHeight(i, y) >= treeHeight) break;
+      for (int i = index + direction; heights.get(i) != EDGE; i += direction) {
+        distance++;
+        if (heights.get(i) >= treeHeight) break;
       }
 
-      return score;
+      return distance;
     }
   }
 }
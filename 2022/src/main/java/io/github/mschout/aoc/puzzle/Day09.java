@@ -1,46 +1,50 @@
 package io.github.mschout.aoc.puzzle;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Table;
 import io.github.mschout.aoc.AdventOfCodePuzzle;
+import io.github.mschout.aoc.InputTokenizer;
+import io.github.mschout.aoc.Puzzle;
+import io.github.mschout.aoc.collect.Coordinates;
+import io.github.mschout.aoc.collect.LongHashSet;
 import lombok.Getter;
+import lombok.SneakyThrows;
 
-import java.awt.geom.Point2D;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-
-import static java.lang.Integer.parseInt;
 
+@Puzzle(year = 2022, day = 9)
 public class Day09 extends AdventOfCodePuzzle {
   public Day09(Path inputFile) {
     super(inputFile);
   }
 
+  // Both ropes follow the same moves, so they are moved together in one pass
+  @Getter(lazy = true)
+  private final List<Rope> ropes = moveRopes();
+
   @Override
   public String partOne() throws Exception {
-    var rope = new Rope(2);
-
-    try (var lines = Files.lines(inputFile)) {
-      lines.forEach(line -> rope.moveHead(Move.parse(line)));
-    }
-
-    return String.valueOf(rope.getTailVisited().size());
+    return String.valueOf(getRopes().get(0).getTailVisited().size());
   }
 
   @Override
   public String partTwo() throws Exception {
-    var rope = new Rope(10);
+    return String.valueOf(getRopes().get(1).getTailVisited().size());
+  }
+
+  @SneakyThrows
+  private List<Rope> moveRopes() {
+    var ropes = List.of(new Rope(2), new Rope(10));
 
-    try (var lines = Files.lines(inputFile)) {
-      lines.forEach(line -> rope.moveHead(Move.parse(line)));
+    try (var input = openTokenizer()) {
+      while (input.hasNext()) {
+        var move = Move.parse(input);
+
+        for (var rope : ropes)
+          rope.moveHead(move);
+      }
     }
 
-    return String.valueOf(rope.getTailVisited().size());
+    return ropes;
   }
 
   record Move(Day09.Move.Direction direction, int quantity) {
@@ -51,68 +55,59 @@ public class Day09 extends AdventOfCodePuzzle {
       LEFT
     }
 
-    static Move parse(String input) {
-      var fields = input.split("\\s+");
-      if (fields.length != 2)
-        throw new IllegalArgumentException("Bad move input: " + input);
-
-      var direction = switch (fields[0]) {
-        case "U" -> Direction.UP;
-        case "R" -> Direction.RIGHT;
-        case "D" -> Direction.DOWN;
-        case "L" -> Direction.LEFT;
-        default -> throw new IllegalArgumentException("Bad direction input: " + fields[0]);
+    // parse a move such as "R 4"
+    static Move parse(InputTokenizer input) {
+      input.nextToken();
+
+      if (input.tokenLength() != 1)
+        throw new IllegalArgumentException("Bad direction input: " + input.tokenString());
+
+      var direction = switch (input.tokenByte(0)) {
+        case 'U' -> Direction.UP;
+        case 'R' -> Direction.RIGHT;
+        case 'D' -> Direction.DOWN;
+        case 'L' -> Direction.LEFT;
+        default -> throw new IllegalArgumentException("Bad direction input: " + input.tokenString());
       };
 
-      return new Move(direction, parseInt(fields[1]));
+      return new Move(direction, input.nextInt());
     }
   }
 
   static class Rope {
-    private final List<Point2D> rope;
-
-    private final Point2D origin = new Point2D.Double(0, 0);
+    // knot positions, the head is knot 0
+    private final int[] x;
+    private final int[] y;
 
     @Getter
-    private final Set<Point2D> tailVisited = new HashSet<>();
-
-    // The possible knot moves, one square in any direction, or 0,0 to not move it.
-    private final Table<Integer, Integer, Point2D> possibleMoves = HashBasedTable.create();
+    private final LongHashSet tailVisited = new LongHashSet();
 
     Rope(int length) {
-      rope = new ArrayList<>(length);
-
-      for (int i = 0; i < length; i++)
-        rope.add(new Point2D.Double(0, 0));
+      x = new int[length];
+      y = new int[length];
 
-      tailVisited.add(origin);
-
-      // precompute the possible 1x1 point move objects to save memory
-      for (int x = -1; x <= 1; x++)
-        for (int y = -1; y <= 1; y++)
-          possibleMoves.put(x, y, new Point2D.Double(x, y));
+      tailVisited.add(getTailLocation());
     }
 
-    public Point2D getTailLocation() {
-      var tail = Iterables.getLast(rope);
+    // The tail location, packed with Coordinates.pack()
+    public long getTailLocation() {
+      var tail = x.length - 1;
 
-      return new Point2D.Double(tail.getX(), tail.getY());
+      return Coordinates.pack(x[tail], y[tail]);
     }
 
     void moveHead(Move move) {
       for (int i = 0; i < move.quantity(); i++) {
         // for each quantity in the move, move all knots by one position
-        for (int knotNum = 0; knotNum < rope.size(); knotNum++) {
-          var currentKnot = rope.get(knotNum);
-
+        for (int knotNum = 0; knotNum < x.length; knotNum++) {
           if (knotNum == 0) {
             // head knot
-            moveByOne(currentKnot, move.direction());
+            moveByOne(move.direction());
           }
           else {
             // non-head knot - if no move is needed, we can break out of the inner loop
             // here because the rest of the knots will also stay in current position.
-            if (!moveKnotIfNecessary(currentKnot, rope.get(knotNum - 1))) break;
+            if (!moveKnotIfNecessary(knotNum)) break;
           }
         }
 
@@ -121,67 +116,36 @@ public class Day09 extends AdventOfCodePuzzle {
     }
 
     /**
-     * Move the given knot by one in the given direction
-     * @param knot the knot to move
+     * Move the head knot by one in the given direction
      * @param direction the direction to move
      */
-    private void moveByOne(Point2D knot, Move.Direction direction) {
-      var x = knot.getX();
-      var y = knot.getY();
-
+    private void moveByOne(Move.Direction direction) {
       switch (direction) {
-        case UP -> y++;
-        case RIGHT -> x++;
-        case DOWN -> y--;
-        case LEFT -> x--;
+        case UP -> y[0]++;
+        case RIGHT -> x[0]++;
+        case DOWN -> y[0]--;
+        case LEFT -> x[0]--;
       }
-
-      knot.setLocation(x, y);
     }
 
-    // Move the knot (if needed) so that it is within one square of the knot in front of
-    // it
-
     /**
      * Moves the given knot if necessary so that it is within 1 square of the knot in
-     * front of it.
-     * @param currentKnot the knot to move
-     * @param nextKnot the next knot closer to the head of the rope (or the head itself)
+     * front of it. The knot moves at most one square along each axis.
+     * @param knotNum the knot to move
      * @return true if the knot was moved, false otherwise
      */
-    boolean moveKnotIfNecessary(Point2D currentKnot, Point2D nextKnot) {
-      var point = getRequiredKnotMove(currentKnot, nextKnot);
-
-      if (!point.equals(origin)) {
-        currentKnot.setLocation(currentKnot.getX() + point.getX(), currentKnot.getY() + point.getY());
-        return true;
-      }
-
-      return false;
-    }
-
-    /**
-     * Returns one of the eight possible moves for the given knot as a point. eg: move
-     * left one: (-1,0) dont move: (0,0) up-right: (1,1)
-     * @param currentKnot The current knot in the rope to move
-     * @param nextKnot The next knot closer to the head (or the head itself)
-     * @return Point representing required move
-     */
-    private Point2D getRequiredKnotMove(Point2D currentKnot, Point2D nextKnot) {
-      var distance = nextKnot.distance(currentKnot);
-
-      if (distance >= 2.0) {
-        var dx = nextKnot.getX() - currentKnot.getX();
-        var dy = nextKnot.getY() - currentKnot.getY();
+    boolean moveKnotIfNecessary(int knotNum) {
+      var dx = x[knotNum - 1] - x[knotNum];
+      var dy = y[knotNum - 1] - y[knotNum];
 
-        var x = dx < 0 ? -1 : dx > 0 ? 1 : 0;
-        var y = dy < 0 ? -1 : dy > 0 ? 1 : 0;
+      // still touching, no move required
+      if (Math.abs(dx) <= 1 && Math.abs(dy) <= 1)
+        return false;
 
-        return possibleMoves.get(x, y);
-      }
+      x[knotNum] += Integer.signum(dx);
+      y[knotNum] += Integer.signum(dy);
 
-      // no move required
-      return possibleMoves.get(0, 0);
+      return true;
     }
   }
 }
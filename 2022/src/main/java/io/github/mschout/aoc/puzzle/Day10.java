@@ -2,16 +2,19 @@ package io.github.mschout.aoc.puzzle;
 
 import com.google.common.collect.Lists;
 import io.github.mschout.aoc.AdventOfCodePuzzle;
+import io.github.mschout.aoc.InputTokenizer;
+import io.github.mschout.aoc.Puzzle;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.SneakyThrows;
 
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
 
+@Puzzle(year = 2022, day = 10)
 public class Day10 extends AdventOfCodePuzzle {
-  private final CPU cpu = new CPU();
+  // The program is run once, the CPU keeps what both parts need
+  @Getter(lazy = true)
+  private final CPU cpu = runProgram();
 
   public Day10(Path inputFile) {
     super(inputFile);
@@ -19,22 +22,30 @@ public class Day10 extends AdventOfCodePuzzle {
 
   @Override
   public String partOne() throws Exception {
-    try (var lines = Files.lines(inputFile)) {
-      lines.forEach(cpu::processInstruction);
-    }
-
-    var totalStrength = cpu.getObservedSignalStrength().stream().reduce(0, Integer::sum);
-
-    return String.valueOf(totalStrength);
+    return String.valueOf(getCpu().getTotalSignalStrength());
   }
 
   @Override
   public String partTwo() throws Exception {
-    return cpu.getDisplay();
+    return getCpu().getDisplay();
+  }
+
+  @SneakyThrows
+  private CPU runProgram() {
+    var cpu = new CPU();
+
+    try (var input = openTokenizer()) {
+      while (input.hasNext())
+        cpu.processInstruction(input);
+    }
+
+    return cpu;
   }
 
   @NoArgsConstructor
   static class CPU {
+    private static final int SCREEN_PIXELS = 40 * 6;
+
     @Getter
     private int cycles = 0;
 
@@ -42,20 +53,24 @@ public class Day10 extends AdventOfCodePuzzle {
     private int register = 1;
 
     @Getter
-    private final List<Integer> observedSignalStrength = new ArrayList<>();
+    private long totalSignalStrength = 0;
 
-    private final StringBuilder crt = new StringBuilder();
+    // One screen (40x6) worth of pixels, later cycles are not displayed
+    private final StringBuilder crt = new StringBuilder(SCREEN_PIXELS);
 
-    public void processInstruction(String instruction) {
-      var fields = instruction.split("\\s+");
+    public void processInstruction(InputTokenizer input) {
+      input.nextToken();
 
-      switch (fields[0]) {
-        case "noop" -> nextTick();
-        case "addx" -> {
-          nextTick(2);
-          register += Integer.parseInt(fields[1]);
-        }
-        default -> throw new IllegalArgumentException("Unrecognized instruction: " + instruction);
+      if (input.tokenEquals("noop")) {
+        nextTick();
+      }
+      else if (input.tokenEquals("addx")) {
+        var value = input.nextInt();
+        nextTick(2);
+        register += value;
+      }
+      else {
+        throw new IllegalArgumentException("Unrecognized instruction: " + input.tokenString());
       }
     }
 
@@ -70,11 +85,14 @@ public class Day10 extends AdventOfCodePuzzle {
       cycles += 1;
 
       if ((cycles - 20) % 40 == 0) {
-        observedSignalStrength.add(register * cycles);
+        totalSignalStrength += (long) register * cycles;
       }
     }
 
     private void drawCrtPixel() {
+      if (cycles >= SCREEN_PIXELS)
+        return;
+
       var spritePosition = register;
       var currentPixel = cycles % 40;
 
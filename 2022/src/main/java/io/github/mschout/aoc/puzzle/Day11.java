@@ -2,17 +2,17 @@ package io.github.mschout.aoc.puzzle;
 
 import com.google.common.collect.Lists;
 import io.github.mschout.aoc.AdventOfCodePuzzle;
+import io.github.mschout.aoc.Puzzle;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.function.Function;
 import java.util.function.LongBinaryOperator;
 import java.util.stream.Collectors;
 
+@Puzzle(year = 2022, day = 11)
 @Slf4j
 public class Day11 extends AdventOfCodePuzzle {
   public Day11(Path inputFile) {
@@ -21,7 +21,7 @@ public class Day11 extends AdventOfCodePuzzle {
 
   @Override
   public String partOne() throws Exception {
-    List<Monkey> monkeys = parseMonkeys(inputFile);
+    List<Monkey> monkeys = parseMonkeys();
 
     for (int i = 0; i < 20; i++)
       for (var monkey : monkeys)
@@ -32,7 +32,7 @@ public class Day11 extends AdventOfCodePuzzle {
 
   @Override
   public String partTwo() throws Exception {
-    List<Monkey> monkeys = parseMonkeys(inputFile);
+    List<Monkey> monkeys = parseMonkeys();
 
     // in part 2, no worry reduction happens. The way to keey worry manageable is to
     // multiply the test divisors of all
@@ -48,22 +48,21 @@ public class Day11 extends AdventOfCodePuzzle {
     return computePuzzleAnswer(monkeys);
   }
 
-  private List<Monkey> parseMonkeys(Path inputFile) throws IOException {
+  private List<Monkey> parseMonkeys() {
     List<Monkey> monkeys = new ArrayList<>();
 
-    try (var lineStream = Files.lines(inputFile)) {
-      monkeys.addAll(
-        Lists.partition(lineStream.toList(), 7)
-          .stream()
-          .map(Monkey::new)
-          .toList());
-    }
+    monkeys.addAll(
+      Lists.partition(getInput().getLines(), 7)
+        .stream()
+        .map(Monkey::new)
+        .toList());
 
     return monkeys;
   }
 
   private String computePuzzleAnswer(List<Monkey> monkeys) {
-    monkeys.forEach(m -> System.out.println("Monkey inspection count: " + m.getInspectionCount()));
+    if (log.isDebugEnabled())
+      monkeys.forEach(m -> log.debug("Monkey inspection count: {}", m.getInspectionCount()));
 
     var answer = monkeys.stream()
       .mapToLong(Monkey::getInspectionCount)
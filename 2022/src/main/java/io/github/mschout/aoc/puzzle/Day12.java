@@ -1,216 +1,113 @@
 package io.github.mschout.aoc.puzzle;
 
-import com.google.common.collect.Lists;
 import io.github.mschout.aoc.AdventOfCodePuzzle;
-import lombok.EqualsAndHashCode;
+import io.github.mschout.aoc.Puzzle;
+import io.github.mschout.aoc.PuzzleInput;
+import io.github.mschout.aoc.graph.GraphSearch;
+import io.github.mschout.aoc.grid.ByteGrid;
 import lombok.Getter;
-import lombok.Setter;
 
-import javax.annotation.Nullable;
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.function.IntConsumer;
 import java.util.stream.IntStream;
 
+@Puzzle(year = 2022, day = 12)
 public class Day12 extends AdventOfCodePuzzle {
-  private final Grid mapGrid;
+  private final HeightMap heightMap;
 
-  public Day12(Path inputFile) throws IOException {
+  public Day12(Path inputFile) {
     super(inputFile);
 
-    mapGrid = new Grid(inputFile);
+    heightMap = new HeightMap(getInput());
   }
 
   @Override
   public String partOne() throws Exception {
-    Map<Location, Integer> locationSteps = new HashMap<>();
-    return String.valueOf(searchBFS(mapGrid.getDestination(), mapGrid.getStartLocation(), locationSteps));
+    return String.valueOf(heightMap.stepsToDestination(heightMap.getStart()));
   }
 
   @Override
   public String partTwo() throws Exception {
-    Map<Location, Integer> locationSteps = new HashMap<>();
+    // search from every possible start at once, which finds the closest one
+    var steps = heightMap.stepsToDestination(
+      heightMap.getPossibleStartLocations().stream().mapToInt(Integer::intValue).toArray());
 
-    // search the entire grid from destination
-    searchBFS(mapGrid.getDestination(), null, locationSteps);
+    if (steps == GraphSearch.UNREACHED)
+      throw new IllegalStateException("No start location can reach the destination");
 
-    var possibleStarts = mapGrid.getPossibleStartLocations();
-
-    var minSteps = possibleStarts.stream()
-      .map(locationSteps::get)
-      .filter(Objects::nonNull) // some start locations can not reach the destination
-      .sorted()
-      .findFirst()
-      .orElseThrow();
-
-    return String.valueOf(minSteps);
+    return String.valueOf(steps);
   }
 
-  private int searchBFS(Location startLocation, @Nullable Location destination, Map<Location, Integer> locationSteps) {
-    Set<Location> visited = new HashSet<>();
-
-    LinkedList<Location> toVisit = new LinkedList<>();
-
-    mapGrid.setStartLocation(startLocation);
-
-    toVisit.add(startLocation);
-
-    // Start location is 0 steps
-    locationSteps.put(startLocation, 0);
-
-    while (!toVisit.isEmpty()) {
-      var location = toVisit.remove();
-
-      // skip if we already visited this node
-      if (visited.contains(location)) continue;
-
-      visited.add(location);
-
-      var steps = locationSteps.get(location);
-
-      // We reached the destination, return number of steps
-      if (location.equals(destination)) return steps;
+  static class HeightMap {
+    // Border value, never climbed to
+    private static final byte EDGE = Byte.MIN_VALUE;
 
-      var neighbors = mapGrid.getReachableNeighbors(location);
+    // Elevations are kept as the letters 'a' - 'z'
+    private final ByteGrid elevations;
 
-      // Update steps for the neighbor
-      for (var neighbor : neighbors) {
-        if (!locationSteps.containsKey(neighbor))
-          locationSteps.put(neighbor, Integer.MAX_VALUE);
-
-        // If we've found a shorter path to the neighbor, update it.
-        if (locationSteps.get(neighbor) > steps + 1)
-          locationSteps.put(neighbor, steps + 1);
-      }
-
-      // Add neighbors to the list of locations to visit
-      toVisit.addAll(neighbors);
-    }
-
-    // We didn't find the destination
-    return -1;
-  }
-
-  @Getter
-  @Setter
-  @EqualsAndHashCode
-  static class Location {
-    private final int x;
-    private final int y;
-    private final int elevation;
-    // private int steps = Integer.MAX_VALUE;
-
-    public Location(int x, int y, Character elevation) {
-      this.x = x;
-      this.y = y;
-
-      // convert a-z elevations to ints, S = 'a', E = 'z'
-      switch (elevation) {
-        case 'S' -> this.elevation = 0;
-        case 'E' -> this.elevation = 'z' - 'a';
-        default -> this.elevation = elevation - 'a';
-      }
-    }
-
-    boolean canClimbTo(Location other) {
-      return other.elevation <= elevation + 1;
-    }
-  }
-
-  static class Grid {
-    private final Location[][] locations;
+    private final int[] directions;
 
     @Getter
-    @Setter
-    private Location startLocation;
+    private final int start;
 
     @Getter
-    private Location destination;
-
-    Grid(Path inputFile) throws IOException {
-      try (var lineStream = Files.lines(inputFile)) {
-        var lines = lineStream.map(Lists::charactersOf).toList();
-
-        locations = new Location[lines.get(0).size()][lines.size()];
-
-        for (int y = 0; y < lines.size(); y++) {
-          var lineChars = lines.get(y);
-
-          for (int x = 0; x < lineChars.size(); x++) {
-            var ch = lineChars.get(x);
-            var location = new Location(x, y, ch);
-
-            locations[x][y] = location;
-
-            if (ch.equals('S')) startLocation = location;
-
-            if (ch.equals('E')) destination = location;
-          }
-        }
-      }
-    }
-
-    Location getLocation(int x, int y) {
-      return locations[x][y];
-    }
-
-    // Find all possible start locations on the map. That is, nodes on the outer edges of
-    // the map with elevation 0
-    Set<Location> getPossibleStartLocations() {
-      var startLocations = new HashSet<Location>();
+    private final int destination;
 
-      // top row
-      startLocations.addAll(IntStream.range(0, maxX() + 1).mapToObj(x -> getLocation(x, 0)).toList());
+    HeightMap(PuzzleInput input) {
+      elevations = ByteGrid.parse(input, EDGE);
+      directions = elevations.neighbourOffsets();
 
-      // left side
-      startLocations.addAll(IntStream.range(0, maxY() + 1).mapToObj(y -> getLocation(0, y)).toList());
+      start = elevations.indexOf((byte) 'S');
+      destination = elevations.indexOf((byte) 'E');
 
-      // right side
-      startLocations.addAll(IntStream.range(0, maxY() + 1).mapToObj(y -> getLocation(maxX(), y)).toList());
+      if (start < 0 || destination < 0)
+        throw new IllegalArgumentException("Map must have a start (S) and a destination (E)");
 
-      // bottom row
-      startLocations.addAll(IntStream.range(0, maxX() + 1).mapToObj(x -> getLocation(x, maxY())).toList());
-
-      // Only include locations with elevation "0"
-      return startLocations.stream().filter(l -> l.getElevation() == 0).collect(Collectors.toSet());
+      // S is at elevation a, and E at elevation z
+      elevations.set(start, (byte) 'a');
+      elevations.set(destination, (byte) 'z');
     }
 
-    List<Location> getReachableNeighbors(Location location) {
-      // we can go up, down, left, right, but only if those locations are on the map, and
-      // elevation is no more than curent location + 1
-      var neighbors = new ArrayList<Location>(4);
-
-      getRelativeNeighbor(location, 0, 1).ifPresent(neighbors::add); // down
-      getRelativeNeighbor(location, 0, -1).ifPresent(neighbors::add); // up
-      getRelativeNeighbor(location, 1, 0).ifPresent(neighbors::add); // right
-      getRelativeNeighbor(location, -1, 0).ifPresent(neighbors::add); // left
+    /**
+     * Breadth first search from the given start locations to the destination.
+     * @return the fewest steps from any of the start locations to the destination, or
+     * GraphSearch.UNREACHED
+     */
+    int stepsToDestination(int... startLocations) {
+      // a search per call, so the two parts can run at the same time
+      var search = new GraphSearch(elevations.size());
 
-      // Only include neighbors that can climb to this location
-      return neighbors.stream().filter(n -> n.canClimbTo(location)).toList();
+      return search.bfs(startLocations, destination, this::forEachClimbable);
     }
 
-    private Optional<Location> getRelativeNeighbor(Location location, int dx, int dy) {
-      var x = location.getX() + dx;
-      var y = location.getY() + dy;
+    // Calls climb with each neighbour of location that is at most one higher than it.
+    void forEachClimbable(int location, IntConsumer climb) {
+      var maxElevation = elevations.get(location) + 1;
 
-      Location neighbor = null;
+      for (var direction : directions) {
+        var neighbor = location + direction;
+        var elevation = elevations.get(neighbor);
 
-      // check that requested location is on the map
-      if (x >= 0 && y >= 0 && x <= maxX() && y <= maxY()) {
-        neighbor = getLocation(x, y);
+        if (elevation != EDGE && elevation <= maxElevation)
+          climb.accept(neighbor);
       }
-
-      return Optional.ofNullable(neighbor);
-    }
-
-    int maxX() {
-      return locations.length - 1;
     }
 
-    int maxY() {
-      return locations[0].length - 1;
+    // Possible start locations are on the outer edges of the map, at elevation a
+    List<Integer> getPossibleStartLocations() {
+      var edges = List.of(
+        elevations.row(0),
+        elevations.row(elevations.height() - 1),
+        elevations.column(0),
+        elevations.column(elevations.width() - 1));
+
+      return edges.stream()
+        .flatMap(edge -> IntStream.range(0, edge.length())
+          .filter(i -> edge.get(i) == 'a')
+          .mapToObj(edge::index))
+        .distinct()
+        .toList();
     }
   }
 }
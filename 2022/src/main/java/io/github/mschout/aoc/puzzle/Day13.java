@@ -2,25 +2,25 @@ package io.github.mschout.aoc.puzzle;
 
 import com.google.gson.*;
 import io.github.mschout.aoc.AdventOfCodePuzzle;
+import io.github.mschout.aoc.Puzzle;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.tuple.Pair;
 
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Stream;
 
+@Puzzle(year = 2022, day = 13)
 @Slf4j
 public class Day13 extends AdventOfCodePuzzle {
   private final List<Pair<List<Object>, List<Object>>> packetPairs;
 
-  public Day13(Path inputFile) throws IOException {
+  public Day13(Path inputFile) {
     super(inputFile);
 
-    var input = Files.readString(inputFile);
+    var input = getInput().getText();
 
     packetPairs = Arrays.stream(input.split("\n\n"))
       .map(this::parsePacketPair)
@@ -1,29 +1,34 @@
 package io.github.mschout.aoc.puzzle;
 
-import com.google.common.base.Splitter;
 import io.github.mschout.aoc.AdventOfCodePuzzle;
+import io.github.mschout.aoc.InputTokenizer;
+import io.github.mschout.aoc.Puzzle;
+import io.github.mschout.aoc.graph.GraphSearch;
+import io.github.mschout.aoc.grid.ByteGrid;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import org.jooq.lambda.Seq;
 
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
+@Puzzle(year = 2022, day = 14)
+@Slf4j
 public class Day14 extends AdventOfCodePuzzle {
   // TODO: probably should have called this wallLines or something.
   private final List<RockPath> rockPaths = new ArrayList<>();
 
-  public Day14(Path inputFile) throws IOException {
+  public Day14(Path inputFile) {
     super(inputFile);
 
-    try (var lineStream = Files.lines(inputFile)) {
-      lineStream.map(RockPath::new).forEach(rockPaths::add);
-    }
+    var input = getInput().tokenizer();
+
+    while (input.hasNext())
+      rockPaths.add(RockPath.parse(input));
   }
 
   @Override
@@ -49,11 +54,12 @@ public class Day14 extends AdventOfCodePuzzle {
     var cave = new Cave(normalizedRockPaths, width, height + 1, sandStartLocation);
 
     int unitsPlaced = 0;
-    while (cave.addSand() != null) {
+    while (cave.addSand() >= 0) {
       unitsPlaced++;
     }
 
-    cave.dump();
+    if (log.isDebugEnabled())
+      log.debug("Cave after part one:\n{}", cave.render());
 
     return String.valueOf(unitsPlaced);
   }
@@ -92,27 +98,17 @@ public class Day14 extends AdventOfCodePuzzle {
 
     // For this part, we can just to BFS from sand start location to find all reachable
     // locations within the cave.
-    Set<Point> visited = new HashSet<>();
-    LinkedList<Point> toVisit = new LinkedList<>();
-
-    toVisit.add(cave.getSandStartLocation());
-
-    while (!toVisit.isEmpty()) {
-      var location = toVisit.remove();
-
-      if (visited.contains(location)) continue;
-
-      visited.add(location);
-
-      toVisit.addAll(cave.getAdjacentEmptyLocations(location));
-
-      cave.setMapValue(location, 'o');
+    var search = new GraphSearch(cave.size());
+    search.bfs(cave.getSandStartLocation(), GraphSearch.NO_TARGET, cave::forEachAdjacentEmptyLocation);
+
+    // Every location we visited will have sand, so that's the answer. The sand is only
+    // placed to draw the cave.
+    if (log.isDebugEnabled()) {
+      search.forEachReached(location -> cave.setMapValue(location, Cave.SAND));
+      log.debug("Cave after part two:\n{}", cave.render());
     }
 
-    // Every location we visited will have sand, so that's the answer.
-    cave.dump();
-
-    return String.valueOf(visited.size());
+    return String.valueOf(search.reachedCount());
   }
 
   @AllArgsConstructor
@@ -122,11 +118,6 @@ public class Day14 extends AdventOfCodePuzzle {
     private int x;
     private int y;
 
-    static Point parse(String xy) {
-      var vals = Arrays.stream(xy.split(",")).map(Integer::parseInt).toList();
-      return new Point(vals.get(0), vals.get(1));
-    }
-
     @Override
     public String toString() {
       return String.format("(%d,%d)", x, y);
@@ -134,14 +125,20 @@ public class Day14 extends AdventOfCodePuzzle {
   }
 
   static class RockPath extends ArrayList<Point> {
-    RockPath(String inputLine) {
-      super(Splitter.on(" -> ").splitToList(inputLine).stream().map(Point::parse).toList());
-    }
-
     RockPath(List<Point> points) {
       super(points);
     }
 
+    // parse a line such as "498,4 -> 498,6 -> 496,6"
+    static RockPath parse(InputTokenizer input) {
+      var points = new ArrayList<Point>();
+
+      while (input.hasNumberOnLine())
+        points.add(new Point(input.nextInt(), input.nextInt()));
+
+      return new RockPath(points);
+    }
+
     public RockPath normalize(int xAdjustment) {
       return new RockPath(
         stream().map(point -> new Point(point.getX() - xAdjustment, point.getY())).toList());
@@ -149,7 +146,14 @@ public class Day14 extends AdventOfCodePuzzle {
   }
 
   static class Cave {
-    private final char[][] floorMap;
+    static final byte EMPTY = 0;
+    static final byte ROCK = '#';
+    static final byte SAND = 'o';
+
+    // Border value. Not empty, so sand never moves off the sides of the map.
+    private static final byte EDGE = '~';
+
+    private final ByteGrid floorMap;
 
     @Getter
     private final int width;
@@ -157,105 +161,97 @@ public class Day14 extends AdventOfCodePuzzle {
     @Getter
     private final int height;
 
+    // Index of the sand source in the floor map
     @Getter
-    private final Point sandStartLocation;
+    private final int sandStartLocation;
 
     private final List<RockPath> walls;
 
     Cave(List<RockPath> walls, int width, int height, Point sandStartLocation) {
       this.walls = walls;
-      floorMap = new char[width][height];
+      floorMap = new ByteGrid(width, height, EDGE);
 
       this.width = width;
       this.height = height;
-      this.sandStartLocation = sandStartLocation;
+      this.sandStartLocation = floorMap.index(sandStartLocation.getX(), sandStartLocation.getY());
 
       initFloorMap();
     }
 
-    public Point addSand() {
-      var location = getNextOpenSandLocation(sandStartLocation);
-      if (location != null)
-        floorMap[location.getX()][location.getY()] = 'o';
-
-      return location;
+    // Size of the floor map index space
+    public int size() {
+      return floorMap.size();
     }
 
-    public Point getNextOpenSandLocation(Point currentLocation) {
-      var x = currentLocation.getX();
-      var y = currentLocation.getY();
-
-      // If we are on the bottom row, we fell into the abyss.
-      if (y == height - 1) return null;
-
-      // If spot below is open, continue downward
-      var location = new Point(x, y + 1);
-
-      if (containsLocation(location) && isLocationEmpty(location))
-        return getNextOpenSandLocation(location);
-
-      // try down-left
-      location = new Point(x - 1, y + 1);
-      if (containsLocation(location) && isLocationEmpty(location))
-        return getNextOpenSandLocation(location);
-
-      // try down-right
-      location = new Point(x + 1, y + 1);
-      if (containsLocation(location) && isLocationEmpty(location))
-        return getNextOpenSandLocation(location);
-
-      // Otherwise, if the location we are currently on is empty, this is the next
-      // location
-      location = new Point(x, y);
-      if (containsLocation(location) && floorMap[x][y] == 0)
-        return new Point(x, y);
+    // Drop one unit of sand. Returns where it came to rest, or -1 if there was nowhere
+    // for it to go.
+    public int addSand() {
+      var location = getNextOpenSandLocation();
+      if (location >= 0)
+        floorMap.set(location, SAND);
 
-      // otherwise all possible locations are occupied. return null
-      return null;
-    }
-
-    public boolean containsLocation(int x, int y) {
-      return x >= 0 && x <= width - 1 && y >= 0 && y <= height - 1;
+      return location;
     }
 
-    public boolean containsLocation(Point location) {
-      return containsLocation(location.getX(), location.getY());
+    // Where the next unit of sand comes to rest, or -1 if it falls into the abyss or the
+    // sand source is blocked.
+    public int getNextOpenSandLocation() {
+      var location = sandStartLocation;
+
+      if (!isLocationEmpty(location))
+        return -1;
+
+      while (true) {
+        // If we are on the bottom row, we fell into the abyss.
+        if (floorMap.y(location) == height - 1) return -1;
+
+        var below = location + floorMap.stride();
+
+        // down, then down-left, then down-right
+        if (isLocationEmpty(below))
+          location = below;
+        else if (isLocationEmpty(below - 1))
+          location = below - 1;
+        else if (isLocationEmpty(below + 1))
+          location = below + 1;
+        else
+          return location;
+      }
     }
 
-    public boolean isLocationEmpty(Point location) {
-      return floorMap[location.getX()][location.getY()] == 0;
+    public boolean isLocationEmpty(int location) {
+      return floorMap.get(location) == EMPTY;
     }
 
-    public Set<Point> getAdjacentEmptyLocations(Point location) {
-      // next locations are down, down-left, down-right
-      var x = location.getX();
-      var y = location.getY();
-
-      // next possible locations, DOWN, DOWN-LEFT, DOWN-RIGHT
-      var nextLocations = Stream.of(
-        new Point(x, y + 1),
-        new Point(x - 1, y + 1),
-        new Point(x + 1, y + 1));
+    // Calls action with each empty location sand can move to from location: down,
+    // down-left, down-right.
+    public void forEachAdjacentEmptyLocation(int location, IntConsumer action) {
+      var below = location + floorMap.stride();
 
-      // Only include empty spots that are within the cave.
-      return nextLocations.filter(p -> containsLocation(p) && isLocationEmpty(p))
-        .collect(Collectors.toSet());
+      if (isLocationEmpty(below)) action.accept(below);
+      if (isLocationEmpty(below - 1)) action.accept(below - 1);
+      if (isLocationEmpty(below + 1)) action.accept(below + 1);
     }
 
-    public void dump() {
+    // The cave as text, one line per row
+    public String render() {
+      var picture = new StringBuilder((width + 1) * height);
+
       for (int y = 0; y < height; y++) {
         for (int x = 0; x < width; x++) {
-          char ch = floorMap[x][y];
-          if (ch == 0) ch = '.';
+          char ch = (char) floorMap.get(x, y);
+          if (ch == EMPTY) ch = '.';
 
           // Mark sand start location
-          if (sandStartLocation.equals(new Point(x, y))) ch = '+';
+          if (floorMap.index(x, y) == sandStartLocation) ch = '+';
 
-          System.out.print(Character.valueOf(ch).toString());
+          picture.append(ch);
         }
 
-        System.out.println();
+        picture.append('\n');
       }
+
+      return picture.toString();
     }
 
     private void initFloorMap() {
@@ -281,7 +277,7 @@ public class Day14 extends AdventOfCodePuzzle {
         var yEnd = Math.max(start.getY(), end.getY());
 
         for (int yv = yStart; yv <= yEnd; yv++)
-          setMapValue(x, yv, '#');
+          floorMap.set(x, yv, ROCK);
       }
       else if (y == end.getY()) {
         // horizontal wall
@@ -289,16 +285,12 @@ public class Day14 extends AdventOfCodePuzzle {
         var xEnd = Math.max(start.getX(), end.getX());
 
         for (int xv = xStart; xv <= xEnd; xv++)
-          setMapValue(xv, y, '#');
+          floorMap.set(xv, y, ROCK);
       }
     }
 
-    public void setMapValue(int x, int y, char value) {
-      floorMap[x][y] = value;
-    }
-
-    public void setMapValue(Point location, char value) {
-      floorMap[location.getX()][location.getY()] = value;
+    public void setMapValue(int location, byte value) {
+      floorMap.set(location, value);
     }
   }
 }
@@ -1,39 +1,37 @@
 package io.github.mschout.aoc.puzzle;
 
 import io.github.mschout.aoc.AdventOfCodePuzzle;
+import io.github.mschout.aoc.Puzzle;
+import io.github.mschout.aoc.collect.CoordinateBitmap;
+import io.github.mschout.aoc.collect.Coordinates;
+import io.github.mschout.aoc.collect.LongHashSet;
 
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.regex.Pattern;
 
 import static java.lang.Math.abs;
+import static java.lang.Math.toIntExact;
 
+@Puzzle(year = 2022, day = 15)
 public class Day15 extends AdventOfCodePuzzle {
   private final Set<Sensor> sensors = new HashSet<>();
-  private final Set<Point> notBeaconPoints = new HashSet<>();
 
-  public Day15(Path inputFile) throws IOException {
-    super(inputFile);
-
-    var pattern = Pattern.compile("x=(-?\\d+), y=(-?\\d+)");
-
-    try (var lineStream = Files.lines(inputFile)) {
-      lineStream.forEach(line -> {
-        var matcher = pattern.matcher(line);
+  // Sensor and beacon locations, packed with Coordinates.pack()
+  private final LongHashSet notBeaconPoints = new LongHashSet();
 
-        var points = new ArrayList<Point>();
+  public Day15(Path inputFile) {
+    super(inputFile);
 
-        while (matcher.find()) {
-          points.add(new Point(Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2))));
-        }
+    var input = getInput().tokenizer();
 
-        assert points.size() == 2;
+    // Sensor at x=2, y=18: closest beacon is at x=-2, y=15
+    while (input.hasNext()) {
+      var sensor = new Point(input.nextLong(), input.nextLong());
+      var beacon = new Point(input.nextLong(), input.nextLong());
 
-        sensors.add(new Sensor(points.get(0), points.get(0).distance(points.get(1))));
-        notBeaconPoints.addAll(points);
-      });
+      sensors.add(new Sensor(sensor, sensor.distance(beacon)));
+      notBeaconPoints.add(sensor.packed());
+      notBeaconPoints.add(beacon.packed());
     }
   }
 
@@ -41,25 +39,28 @@ public class Day15 extends AdventOfCodePuzzle {
   public String partOne() throws Exception {
     var y = 2_000_000;
 
+    // Only the one row is counted, so that is all that needs to be stored.
+    var row = new CoordinateBitmap();
+
+    notBeaconPoints.forEach(point -> {
+      if (Coordinates.y(point) == y)
+        row.add(Coordinates.x(point), y);
+    });
+
     sensors.forEach(sensor -> {
       var dy = abs(sensor.y() - y);
       var numRowHashes = (sensor.distanceToBeacon() * 2 + 1) - (2 * dy);
 
       if (numRowHashes == 1) {
-        notBeaconPoints.add(new Point(sensor.x(), y));
+        row.add(toIntExact(sensor.x()), y);
       }
       else if (numRowHashes > 0) {
         var offset = (numRowHashes - 1) / 2;
-        for (long i = sensor.x() - offset; i < sensor.x() + offset; i++)
-          notBeaconPoints.add(new Point(i, y));
+        row.addRow(y, toIntExact(sensor.x() - offset), toIntExact(sensor.x() + offset));
       }
     });
 
-    var answer = notBeaconPoints.stream()
-      .filter(point -> point.y() == y)
-      .count();
-
-    return String.valueOf(answer);
+    return String.valueOf(row.cardinality());
   }
 
   // This one was tricky.
@@ -91,7 +92,7 @@ public class Day15 extends AdventOfCodePuzzle {
 
   private Point findDistressBeacon() {
     // Keep track of points we already checked.
-    var visited = new HashSet<Point>();
+    var visited = new LongHashSet();
 
     for (var sensor : sensors) {
       LinkedList<Point> pointsToVisit = new LinkedList<>();
@@ -101,11 +102,9 @@ public class Day15 extends AdventOfCodePuzzle {
       while (!pointsToVisit.isEmpty()) {
         var point = pointsToVisit.remove();
 
-        if (visited.contains(point))
+        if (!visited.add(point.packed()))
           continue;
 
-        visited.add(point);
-
         pointsToVisit.addAll(sensor.nextPerimeterPoints(point));
 
         // skip this point if it is outside the search grid.
@@ -127,6 +126,10 @@ public class Day15 extends AdventOfCodePuzzle {
     public long distance(Point other) {
       return abs(other.x - x) + abs(other.y - y);
     }
+
+    public long packed() {
+      return Coordinates.pack(toIntExact(x), toIntExact(y));
+    }
   }
 
   record Sensor(Point location, long distanceToBeacon) {
@@ -0,0 +1,19 @@
+package io.github.mschout.aoc;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an {@code AdventOfCodePuzzle} implementation. The puzzle registry processor
+ * collects these at compile time and generates {@code PuzzleRegistry}, so that puzzles can
+ * be constructed without reflection.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Puzzle {
+  int year();
+
+  int day();
+}
@@ -0,0 +1,185 @@
+package io.github.mschout.aoc.processor;
+
+import io.github.mschout.aoc.Puzzle;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Generates {@code io.github.mschout.aoc.PuzzleRegistry}, which maps (year, day) to a
+ * constructor reference and class literal for every class annotated with {@link Puzzle}.
+ * <p>
+ * Compilation fails if an annotated class is not a concrete {@code AdventOfCodePuzzle}
+ * with a public {@code (Path)} constructor, if two classes claim the same day, or if a
+ * concrete {@code AdventOfCodePuzzle} subclass is missing its {@link Puzzle} annotation.
+ */
+@SupportedAnnotationTypes("*")
+public class PuzzleRegistryProcessor extends AbstractProcessor {
+  private static final String PACKAGE = "io.github.mschout.aoc";
+  private static final String REGISTRY_NAME = "PuzzleRegistry";
+  private static final String PUZZLE_CLASS = PACKAGE + ".AdventOfCodePuzzle";
+
+  // year -> day -> puzzle class name
+  private final SortedMap<Integer, SortedMap<Integer, String>> puzzles = new TreeMap<>();
+
+  private boolean generated = false;
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    if (generated || roundEnv.processingOver())
+      return false;
+
+    for (var type : ElementFilter.typesIn(roundEnv.getRootElements()))
+      checkPuzzle(type);
+
+    if (!puzzles.isEmpty()) {
+      writeRegistry();
+      generated = true;
+    }
+
+    // Never claim annotations, other processors (lombok, picocli) need to see them too.
+    return false;
+  }
+
+  private void checkPuzzle(TypeElement type) {
+    var annotation = type.getAnnotation(Puzzle.class);
+    var isPuzzle = extendsPuzzle(type) && !type.getModifiers().contains(Modifier.ABSTRACT);
+
+    if (annotation == null) {
+      if (isPuzzle)
+        error(type, "%s extends AdventOfCodePuzzle but has no @Puzzle annotation", type.getSimpleName());
+
+      return;
+    }
+
+    if (!isPuzzle) {
+      error(type, "@Puzzle class %s must be a concrete subclass of AdventOfCodePuzzle", type.getSimpleName());
+      return;
+    }
+
+    if (!type.getModifiers().contains(Modifier.PUBLIC) || !hasPathConstructor(type)) {
+      error(type, "@Puzzle class %s must be public with a public (Path) constructor", type.getSimpleName());
+      return;
+    }
+
+    if (annotation.day() < 1 || annotation.day() > 25) {
+      error(type, "@Puzzle day must be between 1 and 25, got %d", annotation.day());
+      return;
+    }
+
+    var days = puzzles.computeIfAbsent(annotation.year(), year -> new TreeMap<>());
+    var existing = days.putIfAbsent(annotation.day(), type.getQualifiedName().toString());
+
+    if (existing != null)
+      error(type, "Day %d of %d is already implemented by %s", annotation.day(), annotation.year(), existing);
+  }
+
+  private boolean extendsPuzzle(TypeElement type) {
+    TypeMirror superclass = type.getSuperclass();
+
+    while (superclass.getKind() == TypeKind.DECLARED) {
+      var element = (TypeElement) ((DeclaredType) superclass).asElement();
+
+      if (element.getQualifiedName().contentEquals(PUZZLE_CLASS))
+        return true;
+
+      superclass = element.getSuperclass();
+    }
+
+    return false;
+  }
+
+  private boolean hasPathConstructor(TypeElement type) {
+    return ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+      .filter(constructor -> constructor.getModifiers().contains(Modifier.PUBLIC))
+      .map(ExecutableElement::getParameters)
+      .anyMatch(params -> params.size() == 1 && params.get(0).asType().toString().equals("java.nio.file.Path"));
+  }
+
+  private void writeRegistry() {
+    try {
+      var file = processingEnv.getFiler().createSourceFile(PACKAGE + "." + REGISTRY_NAME);
+
+      try (var out = new PrintWriter(file.openWriter())) {
+        out.println("package " + PACKAGE + ";");
+        out.println();
+        out.println("import java.util.List;");
+        out.println("import java.util.Optional;");
+        out.println();
+        out.println("// Generated by " + getClass().getName() + ", do not edit.");
+        out.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+        out.println("public final class " + REGISTRY_NAME + " {");
+        out.println("  private " + REGISTRY_NAME + "() {");
+        out.println("  }");
+        out.println();
+        out.println("  public static Optional<PuzzleFactory> lookup(int year, int day) {");
+        out.println("    PuzzleFactory factory = switch (year * 100 + day) {");
+
+        for (var year : puzzles.entrySet()) {
+          for (var day : year.getValue().entrySet())
+            out.printf("      case %d -> %s::new;%n", year.getKey() * 100 + day.getKey(), day.getValue());
+        }
+
+        out.println("      default -> null;");
+        out.println("    };");
+        out.println();
+        out.println("    return Optional.ofNullable(factory);");
+        out.println("  }");
+        out.println();
+        out.println("  public static Optional<Class<? extends AdventOfCodePuzzle>> puzzleClass(int year, int day) {");
+        out.println("    Class<? extends AdventOfCodePuzzle> puzzleClass = switch (year * 100 + day) {");
+
+        for (var year : puzzles.entrySet()) {
+          for (var day : year.getValue().entrySet())
+            out.printf("      case %d -> %s.class;%n", year.getKey() * 100 + day.getKey(), day.getValue());
+        }
+
+        out.println("      default -> null;");
+        out.println("    };");
+        out.println();
+        out.println("    return Optional.ofNullable(puzzleClass);");
+        out.println("  }");
+        out.println();
+        out.println("  public static List<Integer> days(int year) {");
+        out.println("    return switch (year) {");
+
+        for (Map.Entry<Integer, SortedMap<Integer, String>> year : puzzles.entrySet()) {
+          var days = year.getValue().keySet().stream().map(String::valueOf).collect(Collectors.joining(", "));
+          out.printf("      case %d -> List.of(%s);%n", year.getKey(), days);
+        }
+
+        out.println("      default -> List.of();");
+        out.println("    };");
+        out.println("  }");
+        out.println("}");
+      }
+    }
+    catch (IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write puzzle registry: " + e);
+    }
+  }
+
+  private void error(Element element, String format, Object... args) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, String.format(format, args), element);
+  }
+}
@@ -0,0 +1,114 @@
+package io.github.mschout.aoc.puzzle;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import java.util.Stack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Day05Test {
+  // Moving crates from a stack back onto itself, one at a time or all at once, changes nothing
+  @ParameterizedTest
+  @EnumSource(Day05.Engine.class)
+  void moveOntoSameStackLeavesItUnchanged(Day05.Engine engine) {
+    for (var preserveOrder : new boolean[] { false, true }) {
+      var stack = stackOf(engine, "ABCDE");
+
+      stack.moveTo(stack, 3, preserveOrder);
+
+      assertEquals("ABCDE", stack.toString());
+      assertEquals('E', stack.peek());
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(Day05.Engine.class)
+  void moveOneAtATimeReversesCrates(Day05.Engine engine) {
+    var from = stackOf(engine, "ABCDE");
+    var to = stackOf(engine, "Z");
+
+    from.moveTo(to, 3, false);
+
+    assertEquals("AB", from.toString());
+    assertEquals("ZEDC", to.toString());
+  }
+
+  @ParameterizedTest
+  @EnumSource(Day05.Engine.class)
+  void movePreservingOrderKeepsCrates(Day05.Engine engine) {
+    var from = stackOf(engine, "ABCDE");
+    var to = stackOf(engine, "Z");
+
+    from.moveTo(to, 3, true);
+
+    assertEquals("AB", from.toString());
+    assertEquals("ZCDE", to.toString());
+  }
+
+  // Checked against a java.util.Stack moved one crate at a time, rather than against the
+  // other engine, so a mistake both engines share is still caught
+  @ParameterizedTest
+  @EnumSource(Day05.Engine.class)
+  void randomMovesMatchMovingOneCrateAtATime(Day05.Engine engine) {
+    var random = new Random(1);
+
+    for (var preserveOrder : new boolean[] { false, true }) {
+      var stacks = new Day05.CrateStack[3];
+      var expected = new ArrayList<Stack<Character>>();
+
+      for (int i = 0; i < stacks.length; i++) {
+        stacks[i] = engine.newStack();
+        expected.add(new Stack<>());
+
+        for (int crate = 0; crate < 2000; crate++) {
+          var c = (char) ('A' + random.nextInt(26));
+          stacks[i].push(c);
+          expected.get(i).push(c);
+        }
+      }
+
+      for (int move = 0; move < 500; move++) {
+        var from = random.nextInt(stacks.length);
+        var to = random.nextInt(stacks.length);
+        var count = random.nextInt(expected.get(from).size() + 1);
+
+        stacks[from].moveTo(stacks[to], count, preserveOrder);
+
+        if (preserveOrder) {
+          // CrateMover 9001 picks them all up at once
+          var moved = new ArrayList<Character>();
+          for (int i = 0; i < count; i++)
+            moved.add(expected.get(from).pop());
+
+          Collections.reverse(moved);
+          expected.get(to).addAll(moved);
+        }
+        else {
+          for (int i = 0; i < count; i++)
+            expected.get(to).push(expected.get(from).pop());
+        }
+
+        for (int i = 0; i < stacks.length; i++) {
+          var crates = new StringBuilder();
+          expected.get(i).forEach(crates::append);
+
+          assertEquals(crates.toString(), stacks[i].toString());
+        }
+      }
+    }
+  }
+
+  // crates bottom to top
+  private static Day05.CrateStack stackOf(Day05.Engine engine, String crates) {
+    var stack = engine.newStack();
+
+    for (var crate : crates.toCharArray())
+      stack.push(crate);
+
+    return stack;
+  }
+}